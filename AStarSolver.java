@@ -0,0 +1,67 @@
+import java.util.Arrays;
+
+// searches a MazeGrid with A*, expanding the cell with the smallest known
+// distance from start plus Manhattan distance to goal first. The open set
+// is an IntHeap that may hold stale entries for cells already closed;
+// those are skipped when popped instead of being updated in place.
+class AStarSolver extends AbstractSolver {
+  IntHeap open;
+  long[] closed;
+  int[] cost;
+
+  AStarSolver(MazeGrid grid) {
+    super(grid);
+    this.open = new IntHeap(64);
+    this.closed = new long[this.visited.length];
+    this.cost = new int[grid.cells()];
+  }
+
+  // searches from start until it closes goal
+  public boolean solve(int start, int goal) {
+    this.begin(start);
+    Arrays.fill(this.closed, 0L);
+    Arrays.fill(this.cost, Integer.MAX_VALUE);
+    this.open.clear();
+    this.cost[start] = 0;
+    this.open.push(this.estimate(start, goal), start);
+
+    while (!this.open.isEmpty()) {
+      int next = this.open.pop();
+      if ((this.closed[next >>> 6] & (1L << next)) != 0) {
+        continue;
+      }
+      this.closed[next >>> 6] |= 1L << next;
+      if (next == goal) {
+        return true;
+      }
+      this.order[this.expanded++] = next;
+      int count = this.grid.neighbours(next, this.out);
+      for (int i = 0; i < count; i++) {
+        int to = this.out[i];
+        int g = this.cost[next] + 1;
+        if (g < this.cost[to]) {
+          this.cost[to] = g;
+          this.parent[to] = next;
+          this.visit(to);
+          this.open.push(g + this.estimate(to, goal), to);
+        }
+      }
+      if (this.open.size > this.highWater) {
+        this.highWater = this.open.size;
+      }
+    }
+    return false;
+  }
+
+  // the Manhattan distance between two cells, which never overestimates
+  int estimate(int cell, int goal) {
+    return Math.abs(this.grid.col(cell) - this.grid.col(goal))
+        + Math.abs(this.grid.row(cell) - this.grid.row(goal));
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "A*";
+  }
+
+}
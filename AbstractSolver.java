@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+// represents the buffers every Solver keeps for its grid: a visited bitset,
+// the parent of each cell and the order cells were expanded in. They are
+// sized to the grid once and reused by every solve.
+abstract class AbstractSolver implements Solver {
+  MazeGrid grid;
+  long[] visited;
+  int[] parent;
+  int[] order;
+  int expanded;
+  int highWater;
+  int start;
+  int[] out;
+
+  AbstractSolver(MazeGrid grid) {
+    this.grid = grid;
+    this.visited = new long[(grid.cells() + 63) >>> 6];
+    this.parent = new int[grid.cells()];
+    this.order = new int[grid.cells()];
+    this.out = new int[4];
+  }
+
+  // forgets the last solve and starts a new one from the given cell
+  void begin(int start) {
+    Arrays.fill(this.visited, 0L);
+    this.start = start;
+    this.expanded = 0;
+    this.highWater = 1;
+    this.visit(start);
+    this.parent[start] = start;
+  }
+
+  // determines if the given cell has been reached
+  boolean isVisited(int cell) {
+    return (this.visited[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  // marks the given cell as reached
+  void visit(int cell) {
+    this.visited[cell >>> 6] |= 1L << cell;
+  }
+
+  // the number of cells the last solve expanded
+  public int expanded() {
+    return this.expanded;
+  }
+
+  // the most cells the last solve held waiting to be expanded at once
+  public int highWater() {
+    return this.highWater;
+  }
+
+  // the cells the last solve expanded
+  public int[] order() {
+    return this.order;
+  }
+
+  // the parent of every cell reached by the last solve
+  public int[] parents() {
+    return this.parent;
+  }
+
+  // writes the path from goal back to start into out and returns its length
+  public int path(int goal, int[] out) {
+    int length = 0;
+    out[length++] = goal;
+    while (goal != this.start) {
+      goal = this.parent[goal];
+      out[length++] = goal;
+    }
+    return length;
+  }
+
+}
@@ -0,0 +1,63 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// carves a maze with the recursive backtracker, walking from the first
+// cell to a random unvisited neighbour and backing up when there is none.
+// The recursion is an explicit int[] stack, so even a grid that is one
+// long corridor cannot overflow the call stack. Its mazes have long
+// winding passages and few dead ends.
+class BacktrackerGenerator implements MazeGenerator {
+  int[] stack;
+  long[] visited;
+  int[] out;
+
+  BacktrackerGenerator() {
+    this.out = new int[4];
+  }
+
+  // carves a maze by walking depth-first from the first cell
+  public void generate(MazeGrid grid, RandomGenerator rand) {
+    if (this.stack == null || this.stack.length != grid.cells()) {
+      this.stack = new int[grid.cells()];
+      this.visited = new long[(grid.cells() + 63) >>> 6];
+    }
+    else {
+      Arrays.fill(this.visited, 0L);
+    }
+    int top = 0;
+    this.stack[top++] = 0;
+    this.visited[0] |= 1L;
+
+    while (top > 0) {
+      int cell = this.stack[top - 1];
+      int count = grid.adjacent(cell, this.out);
+      int fresh = 0;
+      for (int i = 0; i < count; i++) {
+        int next = this.out[i];
+        if ((this.visited[next >>> 6] & (1L << next)) == 0) {
+          this.out[fresh++] = next;
+        }
+      }
+      if (fresh == 0) {
+        top--;
+      }
+      else {
+        int next = this.out[rand.nextInt(fresh)];
+        grid.openEdge(grid.edgeBetween(cell, next));
+        this.visited[next >>> 6] |= 1L << next;
+        this.stack[top++] = next;
+      }
+    }
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "backtracker";
+  }
+
+  // the MazeFile code of this strategy
+  public int fileCode() {
+    return MazeFile.GENERATOR_BACKTRACKER;
+  }
+
+}
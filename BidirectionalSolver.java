@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+// searches a MazeGrid breadth-first from both start and goal at once,
+// always growing the smaller frontier by one layer, until the two searches
+// meet. The goal side keeps its own visited bitset and parents; when they
+// meet, the goal side's parents along the path are turned around into the
+// shared parent array, so parents() leads from goal to start as usual.
+class BidirectionalSolver extends AbstractSolver {
+  long[] visitedBack;
+  int[] parentBack;
+  int[] front;
+  int[] back;
+
+  BidirectionalSolver(MazeGrid grid) {
+    super(grid);
+    this.visitedBack = new long[this.visited.length];
+    this.parentBack = new int[grid.cells()];
+    this.front = new int[grid.cells()];
+    this.back = new int[grid.cells()];
+  }
+
+  // searches from start and goal until the two searches meet
+  public boolean solve(int start, int goal) {
+    this.begin(start);
+    if (start == goal) {
+      return true;
+    }
+    Arrays.fill(this.visitedBack, 0L);
+    this.visitedBack[goal >>> 6] |= 1L << goal;
+    this.parentBack[goal] = goal;
+    int frontHead = 0;
+    int frontTail = 0;
+    int backHead = 0;
+    int backTail = 0;
+    this.front[frontTail++] = start;
+    this.back[backTail++] = goal;
+
+    while (frontHead < frontTail && backHead < backTail) {
+      if (frontTail - frontHead <= backTail - backHead) {
+        int layer = frontTail;
+        while (frontHead < layer) {
+          int next = this.front[frontHead++];
+          this.order[this.expanded++] = next;
+          int count = this.grid.neighbours(next, this.out);
+          for (int i = 0; i < count; i++) {
+            int to = this.out[i];
+            if (!this.isVisited(to)) {
+              this.visit(to);
+              this.parent[to] = next;
+              if (this.isVisitedBack(to)) {
+                this.join(to, goal);
+                return true;
+              }
+              this.front[frontTail++] = to;
+            }
+          }
+          this.highWater = Math.max(this.highWater,
+              frontTail - frontHead + backTail - backHead);
+        }
+      }
+      else {
+        int layer = backTail;
+        while (backHead < layer) {
+          int next = this.back[backHead++];
+          this.order[this.expanded++] = next;
+          int count = this.grid.neighbours(next, this.out);
+          for (int i = 0; i < count; i++) {
+            int to = this.out[i];
+            if (!this.isVisitedBack(to)) {
+              this.visitedBack[to >>> 6] |= 1L << to;
+              this.parentBack[to] = next;
+              if (this.isVisited(to)) {
+                this.join(to, goal);
+                return true;
+              }
+              this.back[backTail++] = to;
+            }
+          }
+          this.highWater = Math.max(this.highWater,
+              frontTail - frontHead + backTail - backHead);
+        }
+      }
+    }
+    return false;
+  }
+
+  // determines if the search from goal has reached the given cell
+  boolean isVisitedBack(int cell) {
+    return (this.visitedBack[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  // points the cells between the meeting cell and goal back towards start
+  void join(int meet, int goal) {
+    int cell = meet;
+    while (cell != goal) {
+      int next = this.parentBack[cell];
+      this.parent[next] = cell;
+      this.visit(next);
+      cell = next;
+    }
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "bidirectional";
+  }
+
+}
@@ -0,0 +1,289 @@
+import java.awt.Color;
+import java.util.Arrays;
+import javalib.worldimages.ComputedPixelImage;
+
+// draws the part of a maze's board inside a fixed-size viewport into one
+// pixel image. Zoomed in, every cell is scale pixels square with its east
+// and south walls along its last column and row of pixels; at one pixel a
+// cell only its colour is left. Zoomed out further, each pixel stands for
+// a block of 2^level by 2^level cells and shows the most telling colour in
+// it, read from a pyramid of blocks that is kept up to date as cells
+// change colour, so a frame never looks at more blocks than pixels.
+// The viewport is drawn whole only when it pans or zooms; after that only
+// the cells marked dirty since the last flush are drawn again.
+class BoardRenderer {
+  static final int CELL = 10;
+  // the largest viewport, which leaves the instructions beside it
+  static final int VIEW_WIDTH = 1000;
+  static final int VIEW_HEIGHT = 800;
+  // the sizes a cell can be drawn at, in pixels, zooming out
+  static final int[] SCALES = {10, 5, 2, 1};
+  // the colours blocks of cells can show, from the least telling up
+  static final Color[] PALETTE = {Color.GRAY, Color.BLUE, Color.PINK, Color.GREEN};
+
+  MazeGrid grid;
+  CellColors colors;
+  ComputedPixelImage image;
+  int viewWidth;
+  int viewHeight;
+  int[] dirty;
+  int dirtyCount;
+  long[] queued;
+  // pixels per cell while level is 0, else 1
+  int scale;
+  // a pixel stands for 2^level by 2^level cells
+  int level;
+  // the top left cell in the viewport
+  int originCol;
+  int originRow;
+  // levels[k] holds the PALETTE index of every block of 2^k by 2^k cells,
+  // row by row; levels[0] holds the cells themselves
+  byte[][] levels;
+
+  BoardRenderer(MazeGrid grid, CellColors colors) {
+    this.grid = grid;
+    this.colors = colors;
+    this.viewWidth = Math.min(VIEW_WIDTH, grid.width * CELL);
+    this.viewHeight = Math.min(VIEW_HEIGHT, grid.height * CELL);
+    this.image = new ComputedPixelImage(this.viewWidth, this.viewHeight);
+    this.dirty = new int[16];
+    this.queued = new long[(grid.cells() + 63) >>> 6];
+    this.scale = CELL;
+    this.buildLevels();
+    this.redraw();
+  }
+
+  // the PALETTE index of the colour of the given cell, or 0 for a colour
+  // that is not in it
+  int code(int cell) {
+    Color color = this.colors.colorOf(cell);
+    for (int i = PALETTE.length - 1; i > 0; i--) {
+      if (PALETTE[i].equals(color)) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
+  // the number of blocks across a level
+  int levelWidth(int k) {
+    return ((this.grid.width - 1) >> k) + 1;
+  }
+
+  // the number of blocks down a level
+  int levelHeight(int k) {
+    return ((this.grid.height - 1) >> k) + 1;
+  }
+
+  // builds every level of blocks, up to the one that is a single block
+  void buildLevels() {
+    int count = 1;
+    while (this.levelWidth(count - 1) > 1 || this.levelHeight(count - 1) > 1) {
+      count++;
+    }
+    this.levels = new byte[count][];
+    this.levels[0] = new byte[this.grid.cells()];
+    for (int cell = 0; cell < this.grid.cells(); cell++) {
+      this.levels[0][cell] = (byte) this.code(cell);
+    }
+    for (int k = 1; k < count; k++) {
+      this.levels[k] = new byte[this.levelWidth(k) * this.levelHeight(k)];
+      for (int by = 0; by < this.levelHeight(k); by++) {
+        for (int bx = 0; bx < this.levelWidth(k); bx++) {
+          this.levels[k][by * this.levelWidth(k) + bx] = this.summarize(k, bx, by);
+        }
+      }
+    }
+  }
+
+  // the most telling colour of the up to four blocks below the given block
+  byte summarize(int k, int bx, int by) {
+    byte[] below = this.levels[k - 1];
+    int width = this.levelWidth(k - 1);
+    int height = this.levelHeight(k - 1);
+    byte most = 0;
+    for (int y = 2 * by; y < Math.min(2 * by + 2, height); y++) {
+      for (int x = 2 * bx; x < Math.min(2 * bx + 2, width); x++) {
+        most = (byte) Math.max(most, below[y * width + x]);
+      }
+    }
+    return most;
+  }
+
+  // notes that the given cell has to be drawn again, and brings the blocks
+  // holding it up to date with its colour
+  void markDirty(int cell) {
+    byte code = (byte) this.code(cell);
+    if (this.levels[0][cell] != code) {
+      this.levels[0][cell] = code;
+      int col = this.grid.col(cell);
+      int row = this.grid.row(cell);
+      for (int k = 1; k < this.levels.length; k++) {
+        int at = (row >> k) * this.levelWidth(k) + (col >> k);
+        byte most = this.summarize(k, col >> k, row >> k);
+        if (this.levels[k][at] == most) {
+          break;
+        }
+        this.levels[k][at] = most;
+      }
+    }
+    if ((this.queued[cell >>> 6] & (1L << cell)) != 0) {
+      return;
+    }
+    this.queued[cell >>> 6] |= 1L << cell;
+    if (this.dirtyCount == this.dirty.length) {
+      this.dirty = Arrays.copyOf(this.dirty, this.dirtyCount * 2);
+    }
+    this.dirty[this.dirtyCount++] = cell;
+  }
+
+  // draws every cell marked dirty since the last flush again
+  void flush() {
+    for (int i = 0; i < this.dirtyCount; i++) {
+      int cell = this.dirty[i];
+      this.queued[cell >>> 6] &= ~(1L << cell);
+      this.paintCell(cell);
+    }
+    this.dirtyCount = 0;
+  }
+
+  // the number of cells or blocks across the viewport
+  int visibleCols() {
+    return (this.viewWidth + this.scale - 1) / this.scale;
+  }
+
+  // the number of cells or blocks down the viewport
+  int visibleRows() {
+    return (this.viewHeight + this.scale - 1) / this.scale;
+  }
+
+  // draws the given cell if it is in the viewport: in its colour with its
+  // east and south walls, or as the block holding it when zoomed out
+  void paintCell(int cell) {
+    int col = this.grid.col(cell);
+    int row = this.grid.row(cell);
+    if (this.level > 0) {
+      this.paintBlock(col >> this.level, row >> this.level);
+      return;
+    }
+    int x = (col - this.originCol) * this.scale;
+    int y = (row - this.originRow) * this.scale;
+    if (x < 0 || y < 0 || x >= this.viewWidth || y >= this.viewHeight) {
+      return;
+    }
+    int w = Math.min(this.scale, this.viewWidth - x);
+    int h = Math.min(this.scale, this.viewHeight - y);
+    this.image.setPixels(x, y, w, h, this.colors.colorOf(cell));
+    if (this.scale > 1) {
+      if (col < this.grid.width - 1 && this.grid.hasEastWall(cell) && w == this.scale) {
+        this.image.setPixels(x + this.scale - 1, y, 1, h, Color.BLACK);
+      }
+      if (row < this.grid.height - 1 && this.grid.hasSouthWall(cell) && h == this.scale) {
+        this.image.setPixels(x, y + this.scale - 1, w, 1, Color.BLACK);
+      }
+    }
+  }
+
+  // draws the given block of the current level if it is in the viewport
+  void paintBlock(int bx, int by) {
+    int x = bx - (this.originCol >> this.level);
+    int y = by - (this.originRow >> this.level);
+    if (x < 0 || y < 0 || x >= this.viewWidth || y >= this.viewHeight) {
+      return;
+    }
+    byte code = this.levels[this.level][by * this.levelWidth(this.level) + bx];
+    this.image.setPixels(x, y, 1, 1, PALETTE[code]);
+  }
+
+  // draws the whole viewport again, which costs its pixels, not the board
+  void redraw() {
+    this.image.setPixels(0, 0, this.viewWidth, this.viewHeight, Color.WHITE);
+    int cols = this.visibleCols();
+    int rows = this.visibleRows();
+    if (this.level > 0) {
+      int bx0 = this.originCol >> this.level;
+      int by0 = this.originRow >> this.level;
+      int bx1 = Math.min(this.levelWidth(this.level), bx0 + cols);
+      int by1 = Math.min(this.levelHeight(this.level), by0 + rows);
+      for (int by = by0; by < by1; by++) {
+        for (int bx = bx0; bx < bx1; bx++) {
+          this.paintBlock(bx, by);
+        }
+      }
+    }
+    else {
+      int col1 = Math.min(this.grid.width, this.originCol + cols);
+      int row1 = Math.min(this.grid.height, this.originRow + rows);
+      for (int row = this.originRow; row < row1; row++) {
+        for (int col = this.originCol; col < col1; col++) {
+          this.paintCell(this.grid.index(col, row));
+        }
+      }
+    }
+  }
+
+  // the zoom step of the current view: an index into SCALES, then one
+  // more for every level past it
+  int zoom() {
+    if (this.level > 0) {
+      return SCALES.length - 1 + this.level;
+    }
+    int step = 0;
+    while (SCALES[step] != this.scale) {
+      step++;
+    }
+    return step;
+  }
+
+  // zooms to the given step, keeping the cell in the middle of the view in
+  // the middle where it can, and draws the viewport again
+  void zoomTo(int step) {
+    int most = SCALES.length - 1 + this.levels.length - 1;
+    step = Math.max(0, Math.min(most, step));
+    int cellsAcross = this.visibleCols() << this.level;
+    int cellsDown = this.visibleRows() << this.level;
+    int centreCol = this.originCol + cellsAcross / 2;
+    int centreRow = this.originRow + cellsDown / 2;
+    if (step < SCALES.length) {
+      this.scale = SCALES[step];
+      this.level = 0;
+    }
+    else {
+      this.scale = 1;
+      this.level = step - (SCALES.length - 1);
+    }
+    this.originCol = centreCol - (this.visibleCols() << this.level) / 2;
+    this.originRow = centreRow - (this.visibleRows() << this.level) / 2;
+    this.panBy(0, 0);
+  }
+
+  // zooms in one step
+  void zoomIn() {
+    this.zoomTo(this.zoom() - 1);
+  }
+
+  // zooms out one step
+  void zoomOut() {
+    this.zoomTo(this.zoom() + 1);
+  }
+
+  // moves the view by the given number of cells, keeping as much of the
+  // board in it as fits, and draws the viewport again
+  void panBy(int cols, int rows) {
+    int spanCols = this.visibleCols() << this.level;
+    int spanRows = this.visibleRows() << this.level;
+    this.originCol = Math.max(0, Math.min(this.grid.width - spanCols, this.originCol + cols));
+    this.originRow = Math.max(0, Math.min(this.grid.height - spanRows, this.originRow + rows));
+    int block = (1 << this.level) - 1;
+    this.originCol &= ~block;
+    this.originRow &= ~block;
+    this.redraw();
+  }
+
+  // moves the view a quarter of its width or height in the given direction
+  void pan(int dx, int dy) {
+    this.panBy(dx * Math.max(1, (this.visibleCols() << this.level) / 4),
+        dy * Math.max(1, (this.visibleRows() << this.level) / 4));
+  }
+
+}
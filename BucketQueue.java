@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+// represents a monotone priority queue of cells by int key, as Dial's
+// buckets: while every key waiting is within maxStep of the last key
+// popped, which holds for Dijkstra's algorithm when no step costs more
+// than maxStep, a ring of maxStep + 1 buckets holds one key each. Each
+// bucket is a doubly linked list threaded through two int arrays indexed
+// by cell, so pushing, lowering a key and popping take O(1) time, apart
+// from stepping over empty buckets, and nothing is ever boxed or allocated.
+class BucketQueue {
+  // prev of a cell that is not queued; the first cell of a bucket has -1
+  static final int NOT_QUEUED = -2;
+
+  int[] head;
+  int[] next;
+  int[] prev;
+  int[] key;
+  // the key of the last cell popped, which no key waiting is below
+  int current;
+  int size;
+
+  BucketQueue(int cells, int maxStep) {
+    if (maxStep < 1) {
+      throw new IllegalArgumentException("Steps have to cost at least 1");
+    }
+    this.head = new int[maxStep + 1];
+    this.next = new int[cells];
+    this.prev = new int[cells];
+    this.key = new int[cells];
+    this.clear();
+  }
+
+  // empties the queue, keeping its arrays
+  void clear() {
+    Arrays.fill(this.head, -1);
+    Arrays.fill(this.prev, NOT_QUEUED);
+    this.current = 0;
+    this.size = 0;
+  }
+
+  // determines if the queue is empty
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // determines if the given cell is waiting in the queue
+  boolean contains(int cell) {
+    return this.prev[cell] != NOT_QUEUED;
+  }
+
+  // adds the cell with the given key, or lowers its key if it is already
+  // waiting; keys have to stay within maxStep of the last key popped
+  void push(int cell, int key) {
+    if (key < this.current || key - this.current >= this.head.length) {
+      throw new IllegalArgumentException("Key " + key + " is outside the window from "
+          + this.current);
+    }
+    if (this.contains(cell)) {
+      this.unlink(cell);
+    }
+    int bucket = key % this.head.length;
+    this.key[cell] = key;
+    this.prev[cell] = -1;
+    this.next[cell] = this.head[bucket];
+    if (this.head[bucket] >= 0) {
+      this.prev[this.head[bucket]] = cell;
+    }
+    this.head[bucket] = cell;
+    this.size++;
+  }
+
+  // takes the cell out of its bucket
+  void unlink(int cell) {
+    int before = this.prev[cell];
+    int after = this.next[cell];
+    if (before >= 0) {
+      this.next[before] = after;
+    }
+    else {
+      this.head[this.key[cell] % this.head.length] = after;
+    }
+    if (after >= 0) {
+      this.prev[after] = before;
+    }
+    this.prev[cell] = NOT_QUEUED;
+    this.size--;
+  }
+
+  // removes and returns a cell with the smallest key
+  int pop() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Queue is empty");
+    }
+    int bucket = this.current % this.head.length;
+    while (this.head[bucket] < 0) {
+      bucket++;
+      if (bucket == this.head.length) {
+        bucket = 0;
+      }
+      this.current++;
+    }
+    int cell = this.head[bucket];
+    this.unlink(cell);
+    return cell;
+  }
+
+}
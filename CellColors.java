@@ -0,0 +1,8 @@
+import java.awt.Color;
+
+// represents the colours the cells of a board are shown in, by cell index,
+// so that drawing a board does not need to know how its cells are kept
+interface CellColors {
+  // the colour the given cell is shown in
+  Color colorOf(int cell);
+}
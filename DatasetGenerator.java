@@ -0,0 +1,183 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// generates a corpus of mazes across every core and streams them, in
+// order, as back to back MazeFile records: each is a full maze file, header
+// and walls, so any record can be cut out and opened on its own.
+//
+//   java DatasetGenerator [--width W] [--height H] [--count N] [--seed S]
+//                         [--generator kruskal|eller] [--threads T] [--out FILE]
+//
+// The seed of every maze is drawn in order from a SplittableRandom seeded
+// with the master seed, and each maze is carved from a SplittableRandom of
+// its own seed, which its record keeps. The corpus therefore only depends
+// on the master seed, never on the number of threads. kruskal visits the
+// edges in a uniformly shuffled order; eller streams rows with
+// EllerGenerator. Each thread reuses one grid and its buffers for every
+// maze it makes, and the records are written from a fixed ring of buffers.
+class DatasetGenerator {
+  int width;
+  int height;
+  long count;
+  long seed;
+  String generator;
+  int threads;
+  String out;
+
+  DatasetGenerator(String[] args) {
+    this.width = 100;
+    this.height = 60;
+    this.count = 1000;
+    this.seed = 0;
+    this.generator = "kruskal";
+    this.threads = Runtime.getRuntime().availableProcessors();
+    this.out = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--width")) {
+        this.width = Integer.parseInt(this.value(args, ++i));
+      }
+      else if (arg.equals("--height")) {
+        this.height = Integer.parseInt(this.value(args, ++i));
+      }
+      else if (arg.equals("--count")) {
+        this.count = Long.parseLong(this.value(args, ++i));
+      }
+      else if (arg.equals("--seed")) {
+        this.seed = Long.parseLong(this.value(args, ++i));
+      }
+      else if (arg.equals("--generator")) {
+        this.generator = this.value(args, ++i);
+      }
+      else if (arg.equals("--threads")) {
+        this.threads = Integer.parseInt(this.value(args, ++i));
+      }
+      else if (arg.equals("--out")) {
+        this.out = this.value(args, ++i);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option " + arg);
+      }
+    }
+    if (this.width < 2 || this.height < 2) {
+      throw new IllegalArgumentException("Mazes have to be at least 2 by 2");
+    }
+    if ((long) this.width * this.height > MazeGrid.MAX_CELLS) {
+      throw new IllegalArgumentException("Mazes can have at most " + MazeGrid.MAX_CELLS
+          + " cells");
+    }
+    if (this.count < 0) {
+      throw new IllegalArgumentException("Count cannot be negative");
+    }
+    if (this.threads < 1) {
+      throw new IllegalArgumentException("At least 1 thread is needed");
+    }
+    if (!this.generator.equals("kruskal") && !this.generator.equals("eller")) {
+      throw new IllegalArgumentException("Unknown generator " + this.generator);
+    }
+  }
+
+  // the value following an option
+  String value(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  // the MazeFile code of the generator
+  int generatorCode() {
+    if (this.generator.equals("eller")) {
+      return MazeFile.GENERATOR_ELLER;
+    }
+    else {
+      return MazeFile.GENERATOR_KRUSKAL;
+    }
+  }
+
+  // generates every maze of the corpus and writes their records to out in
+  // order, keeping at most two per thread in flight, and returns how many
+  // it wrote
+  long run(OutputStream out) throws IOException {
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    ThreadLocal<DatasetWorker> workers =
+        ThreadLocal.withInitial(() -> new DatasetWorker(this.width, this.height));
+    int window = 2 * this.threads;
+    int recordSize = (int) MazeFile.size(this.width, this.height);
+    ByteBuffer[] ring = new ByteBuffer[window];
+    for (int i = 0; i < window; i++) {
+      ring[i] = ByteBuffer.allocate(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<Future<ByteBuffer>>();
+    SplittableRandom seeds = new SplittableRandom(this.seed);
+    int code = this.generatorCode();
+    boolean eller = this.generator.equals("eller");
+
+    try {
+      for (long i = 0; i < this.count + window; i++) {
+        if (pending.size() == window || (i >= this.count && !pending.isEmpty())) {
+          ByteBuffer record = pending.poll().get();
+          out.write(record.array(), 0, record.limit());
+        }
+        if (i < this.count) {
+          ByteBuffer record = ring[(int) (i % window)];
+          long mazeSeed = seeds.nextLong();
+          pending.add(pool.submit(() ->
+              workers.get().generate(mazeSeed, eller, code, record)));
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while generating mazes", e);
+    }
+    catch (ExecutionException e) {
+      throw new IOException("Could not generate a maze", e.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+    }
+    out.flush();
+    return this.count;
+  }
+
+  // generates the corpus described by the arguments and reports its
+  // throughput
+  public static void main(String[] args) throws IOException {
+    DatasetGenerator gen;
+    try {
+      gen = new DatasetGenerator(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: java DatasetGenerator [--width W] [--height H] [--count N]"
+          + " [--seed S] [--generator kruskal|eller] [--threads T] [--out FILE]");
+      System.exit(2);
+      return;
+    }
+    OutputStream out;
+    if (gen.out == null) {
+      out = new BufferedOutputStream(System.out, 1 << 16);
+    }
+    else {
+      out = new BufferedOutputStream(new FileOutputStream(gen.out), 1 << 16);
+    }
+    long start = System.nanoTime();
+    long count = gen.run(out);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    out.close();
+    System.err.printf("%d mazes on %d threads in %.3f s (%.1f mazes/s)%n",
+        count, gen.threads, seconds, count / seconds);
+  }
+
+}
@@ -0,0 +1,47 @@
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+// the buffers one thread of a DatasetGenerator reuses for every maze it makes
+class DatasetWorker {
+  MazeGrid grid;
+  int[] edges;
+  int[] order;
+  DisjointSet sets;
+  EllerGenerator eller;
+
+  DatasetWorker(int width, int height) {
+    this.grid = new MazeGrid(width, height);
+  }
+
+  // carves the maze of the given seed and writes its record into the buffer
+  ByteBuffer generate(long seed, boolean eller, int code, ByteBuffer record) {
+    SplittableRandom rand = new SplittableRandom(seed);
+    this.grid.closeAll();
+    if (eller) {
+      if (this.eller == null) {
+        this.eller = new EllerGenerator(this.grid.width, rand);
+      }
+      this.eller.rand = rand;
+      this.eller.generate(this.grid.height, this.grid);
+    }
+    else {
+      // only Kruskal's algorithm needs the edges and sets, so Eller's can
+      // stream mazes far larger than they would fit
+      if (this.edges == null) {
+        this.edges = this.grid.edgeIds();
+        this.order = new int[this.edges.length];
+        this.sets = new DisjointSet(this.grid.cells());
+      }
+      System.arraycopy(this.edges, 0, this.order, 0, this.edges.length);
+      this.sets.reset();
+      this.grid.kruskal(EdgeOrder.shuffle(this.order, rand), this.sets);
+    }
+    record.clear();
+    MazeFile.writeHeader(record, this.grid.width, this.grid.height, seed, code);
+    record.asLongBuffer().put(this.grid.walls);
+    record.position(record.capacity());
+    record.flip();
+    return record;
+  }
+
+}
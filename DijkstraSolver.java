@@ -0,0 +1,68 @@
+// searches a MazeGrid for the cheapest path over a Terrain with Dijkstra's
+// algorithm, expanding cells in order of what it costs to reach them. The
+// open set is a BucketQueue, since no step costs more than the terrain's
+// largest cost, so the search costs O(cells + total cost) with no heap.
+// In a perfect maze the only path is also the cheapest, so it finds the
+// same path as the other solvers; what changes is which cells it expands
+// on the way, the cheap ground first.
+class DijkstraSolver extends AbstractSolver {
+  Terrain terrain;
+  BucketQueue open;
+  int[] distance;
+
+  DijkstraSolver(MazeGrid grid, Terrain terrain) {
+    super(grid);
+    if (terrain.costs.length != grid.cells()) {
+      throw new IllegalArgumentException("Terrain has to cover every cell of the grid");
+    }
+    if ((long) grid.cells() * terrain.maxCost > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Path costs on this terrain would not fit in an int");
+    }
+    this.terrain = terrain;
+    this.open = new BucketQueue(grid.cells(), terrain.maxCost);
+    this.distance = new int[grid.cells()];
+  }
+
+  // searches from start until it closes goal; afterwards distance holds
+  // the cost of the cheapest way to every cell closed
+  public boolean solve(int start, int goal) {
+    this.begin(start);
+    this.open.clear();
+    this.distance[start] = 0;
+    this.open.push(start, 0);
+
+    while (!this.open.isEmpty()) {
+      int next = this.open.pop();
+      if (next == goal) {
+        return true;
+      }
+      this.order[this.expanded++] = next;
+      int count = this.grid.neighbours(next, this.out);
+      for (int i = 0; i < count; i++) {
+        int to = this.out[i];
+        int cost = this.distance[next] + this.terrain.cost(to);
+        if (!this.isVisited(to) || (this.open.contains(to) && cost < this.distance[to])) {
+          this.visit(to);
+          this.distance[to] = cost;
+          this.parent[to] = next;
+          this.open.push(to, cost);
+        }
+      }
+      if (this.open.size > this.highWater) {
+        this.highWater = this.open.size;
+      }
+    }
+    return false;
+  }
+
+  // what the cheapest path the last solve found to the given cell costs
+  int distance(int cell) {
+    return this.distance[cell];
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "Dijkstra";
+  }
+
+}
@@ -0,0 +1,78 @@
+// represents a union-find over the dense cell indices 0 .. size - 1
+class DisjointSet {
+  int[] parent;
+  byte[] rank;
+  int sets;
+
+  DisjointSet(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Size of disjoint set cannot be negative");
+    }
+    this.parent = new int[size];
+    this.rank = new byte[size];
+    this.reset();
+  }
+
+  // puts every index back into its own singleton set
+  void reset() {
+    for (int i = 0; i < this.parent.length; i++) {
+      this.parent[i] = i;
+      this.rank[i] = 0;
+    }
+    this.sets = this.parent.length;
+  }
+
+  // the number of indices covered by this disjoint set
+  int size() {
+    return this.parent.length;
+  }
+
+  // finds the representative of the given index, halving the path as it goes
+  int find(int i) {
+    int[] p = this.parent;
+    while (p[i] != i) {
+      p[i] = p[p[i]];
+      i = p[i];
+    }
+    return i;
+  }
+
+  // the number of steps from the given index to its representative,
+  // without shortening the path
+  int depth(int i) {
+    int steps = 0;
+    while (this.parent[i] != i) {
+      i = this.parent[i];
+      steps++;
+    }
+    return steps;
+  }
+
+  // joins the sets holding the two indices, hanging the shallower tree under
+  // the deeper one; returns false if they were already in the same set
+  boolean union(int a, int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+    if (this.rank[rootA] < this.rank[rootB]) {
+      this.parent[rootA] = rootB;
+    }
+    else if (this.rank[rootA] > this.rank[rootB]) {
+      this.parent[rootB] = rootA;
+    }
+    else {
+      this.parent[rootB] = rootA;
+      this.rank[rootA]++;
+    }
+    this.sets--;
+    return true;
+  }
+
+  // determines if the two indices are in the same set
+  boolean connected(int a, int b) {
+    return this.find(a) == this.find(b);
+  }
+
+}
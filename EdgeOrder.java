@@ -0,0 +1,71 @@
+import java.util.random.RandomGenerator;
+
+// represents the order in which Kruskal's algorithm visits the edges of a
+// grid, as edge indices of a MazeGrid along with the weight given to each
+class EdgeOrder {
+  // weights are drawn from 0 .. WEIGHTS - 1, as Maze.allEdges does
+  static final int WEIGHTS = 1000;
+
+  int[] ids;
+  int[] weights;
+
+  EdgeOrder(int[] ids, int[] weights) {
+    if (ids.length != weights.length) {
+      throw new IllegalArgumentException("Every edge needs exactly one weight");
+    }
+    this.ids = ids;
+    this.weights = weights;
+  }
+
+  // orders the edges of the grid exactly as sorting Maze.allEdges by weight
+  // does for the same Random: the weights are drawn in the same sequence and
+  // bucketed by a stable counting sort, so ties keep their creation order
+  static EdgeOrder byWeight(MazeGrid grid, RandomGenerator rand) {
+    int[] unsorted = grid.edgeIds();
+    int[] drawn = new int[unsorted.length];
+    int[] starts = new int[WEIGHTS + 1];
+    for (int i = 0; i < unsorted.length; i++) {
+      drawn[i] = rand.nextInt(WEIGHTS);
+      starts[drawn[i] + 1]++;
+    }
+    for (int w = 0; w < WEIGHTS; w++) {
+      starts[w + 1] += starts[w];
+    }
+    int[] ids = new int[unsorted.length];
+    int[] weights = new int[unsorted.length];
+    for (int i = 0; i < unsorted.length; i++) {
+      int slot = starts[drawn[i]]++;
+      ids[slot] = unsorted[i];
+      weights[slot] = drawn[i];
+    }
+    return new EdgeOrder(ids, weights);
+  }
+
+  // orders the edges of the grid uniformly at random; each edge is weighted
+  // by its position, which is the order Kruskal's algorithm will visit it in
+  static EdgeOrder shuffled(MazeGrid grid, RandomGenerator rand) {
+    int[] ids = shuffle(grid.edgeIds(), rand);
+    int[] weights = new int[ids.length];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = i;
+    }
+    return new EdgeOrder(ids, weights);
+  }
+
+  // shuffles the given array in place with Fisher-Yates and returns it
+  static int[] shuffle(int[] ids, RandomGenerator rand) {
+    for (int i = ids.length - 1; i > 0; i--) {
+      int j = rand.nextInt(i + 1);
+      int temp = ids[i];
+      ids[i] = ids[j];
+      ids[j] = temp;
+    }
+    return ids;
+  }
+
+  // the number of edges in this order
+  int size() {
+    return this.ids.length;
+  }
+
+}
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// generates a maze one row at a time with Eller's algorithm, handing each
+// row to a RowSink as soon as it is finished. Only the sets of the current
+// row are kept, so memory is O(width) however many rows are made.
+//
+// In each row, neighbouring cells in different sets are joined at random;
+// then every set gets at least one opening down, and the cells below the
+// openings start the next row in the same set. The last row joins every
+// pair of neighbours still in different sets, which leaves one tree.
+class EllerGenerator {
+  int width;
+  RandomGenerator rand;
+  DisjointSet columns;
+  // the column whose set each column carries down into the next row, or -1
+  int[] carried;
+  int[] first;
+  int[] lastInSet;
+  boolean[] opened;
+  long[] walls;
+
+  EllerGenerator(int width, RandomGenerator rand) {
+    if (width < 1) {
+      throw new IllegalArgumentException("Width has to be at least 1");
+    }
+    this.width = width;
+    this.rand = rand;
+    this.columns = new DisjointSet(width);
+    this.carried = new int[width];
+    this.first = new int[width];
+    this.lastInSet = new int[width];
+    this.opened = new boolean[width];
+    this.walls = new long[(2 * width + 63) >>> 6];
+  }
+
+  // generates a maze of the given height into the sink
+  void generate(int height, RowSink sink) {
+    if (height < 1) {
+      throw new IllegalArgumentException("Height has to be at least 1");
+    }
+    Arrays.fill(this.carried, -1);
+    for (int y = 0; y < height; y++) {
+      this.nextRow(y, y == height - 1, sink);
+    }
+  }
+
+  // makes row y and hands it to the sink
+  void nextRow(int y, boolean last, RowSink sink) {
+    Arrays.fill(this.walls, -1L);
+
+    // cells below an opening share the set they came from
+    this.columns.reset();
+    Arrays.fill(this.first, -1);
+    for (int x = 0; x < this.width; x++) {
+      int from = this.carried[x];
+      if (from >= 0) {
+        if (this.first[from] < 0) {
+          this.first[from] = x;
+        }
+        else {
+          this.columns.union(this.first[from], x);
+        }
+      }
+    }
+
+    // joins neighbours in different sets, all of them in the last row
+    for (int x = 0; x < this.width - 1; x++) {
+      if (!this.columns.connected(x, x + 1) && (last || this.rand.nextBoolean())) {
+        this.columns.union(x, x + 1);
+        this.walls[(2 * x) >>> 6] &= ~(1L << (2 * x));
+      }
+    }
+
+    if (!last) {
+      // opens at least one cell of every set downwards
+      for (int x = 0; x < this.width; x++) {
+        int root = this.columns.find(x);
+        this.lastInSet[root] = x;
+        this.opened[root] = false;
+      }
+      for (int x = 0; x < this.width; x++) {
+        int root = this.columns.find(x);
+        boolean open = this.rand.nextBoolean()
+            || (this.lastInSet[root] == x && !this.opened[root]);
+        if (open) {
+          this.opened[root] = true;
+          this.walls[(2 * x + 1) >>> 6] &= ~(1L << (2 * x + 1));
+          this.carried[x] = root;
+        }
+        else {
+          this.carried[x] = -1;
+        }
+      }
+    }
+    sink.row(y, this.walls, last);
+  }
+
+}
@@ -0,0 +1,61 @@
+// searches a MazeGrid breadth-first or depth-first over cell indices.
+// Cells are marked visited when they are added to the worklist, so each is
+// added at most once and the worklist never holds more than every cell; it
+// is one int[] used as a queue from its head or as a stack from its top.
+class GridSolver extends AbstractSolver {
+  boolean depthFirst;
+  int[] worklist;
+
+  GridSolver(MazeGrid grid, boolean depthFirst) {
+    super(grid);
+    this.depthFirst = depthFirst;
+    this.worklist = new int[grid.cells()];
+  }
+
+  // searches from start until it reaches goal; afterwards order holds the
+  // cells expanded before goal and parent leads from goal back to start
+  public boolean solve(int start, int goal) {
+    this.begin(start);
+    int head = 0;
+    int tail = 0;
+    this.worklist[tail++] = start;
+
+    while (head < tail) {
+      int next;
+      if (this.depthFirst) {
+        next = this.worklist[--tail];
+      }
+      else {
+        next = this.worklist[head++];
+      }
+      if (next == goal) {
+        return true;
+      }
+      this.order[this.expanded++] = next;
+      int count = this.grid.neighbours(next, this.out);
+      for (int i = 0; i < count; i++) {
+        int to = this.out[i];
+        if (!this.isVisited(to)) {
+          this.visit(to);
+          this.parent[to] = next;
+          this.worklist[tail++] = to;
+        }
+      }
+      if (tail - head > this.highWater) {
+        this.highWater = tail - head;
+      }
+    }
+    return false;
+  }
+
+  // the name of this strategy
+  public String name() {
+    if (this.depthFirst) {
+      return "depth-first";
+    }
+    else {
+      return "breadth-first";
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+// represents a binary min-heap of int values ordered by int keys, kept in
+// two parallel arrays that grow as needed and are reused after clear()
+class IntHeap {
+  int[] keys;
+  int[] values;
+  int size;
+
+  IntHeap(int capacity) {
+    this.keys = new int[Math.max(capacity, 1)];
+    this.values = new int[Math.max(capacity, 1)];
+    this.size = 0;
+  }
+
+  // empties the heap, keeping its arrays
+  void clear() {
+    this.size = 0;
+  }
+
+  // determines if the heap is empty
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // adds the value with the given key
+  void push(int key, int value) {
+    if (this.size == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, this.size * 2);
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+    }
+    int i = this.size++;
+    while (i > 0) {
+      int up = (i - 1) >>> 1;
+      if (this.keys[up] <= key) {
+        break;
+      }
+      this.keys[i] = this.keys[up];
+      this.values[i] = this.values[up];
+      i = up;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+  }
+
+  // the smallest key in the heap
+  int peekKey() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    return this.keys[0];
+  }
+
+  // removes the value with the smallest key and returns it
+  int pop() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    int top = this.values[0];
+    int key = this.keys[--this.size];
+    int value = this.values[this.size];
+    int i = 0;
+    int half = this.size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+        child++;
+      }
+      if (key <= this.keys[child]) {
+        break;
+      }
+      this.keys[i] = this.keys[child];
+      this.values[i] = this.values[child];
+      i = child;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+    return top;
+  }
+
+}
@@ -0,0 +1,30 @@
+import java.util.random.RandomGenerator;
+
+// carves a maze with Kruskal's algorithm over edges weighted and ordered
+// as Maze always has, so the same Random gives the same maze as
+// new Maze(width, height, rand). Its mazes have many short dead ends.
+class KruskalGenerator implements MazeGenerator {
+  DisjointSet sets;
+
+  // carves a maze by joining the sets of cells along the lightest edges
+  public void generate(MazeGrid grid, RandomGenerator rand) {
+    if (this.sets == null || this.sets.size() != grid.cells()) {
+      this.sets = new DisjointSet(grid.cells());
+    }
+    else {
+      this.sets.reset();
+    }
+    grid.kruskal(EdgeOrder.byWeight(grid, rand).ids, this.sets);
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "kruskal";
+  }
+
+  // the MazeFile code of this strategy
+  public int fileCode() {
+    return MazeFile.GENERATOR_KRUSKAL;
+  }
+
+}
@@ -0,0 +1,47 @@
+import java.nio.LongBuffer;
+
+// represents a MazeGrid whose walls live in a LongBuffer instead of a
+// long[], such as a view of a memory-mapped MazeFile. Opening one costs
+// nothing however big the maze is; pages are read in as cells are touched.
+class MappedMazeGrid extends MazeGrid {
+  LongBuffer words;
+
+  MappedMazeGrid(int width, int height, LongBuffer words) {
+    super(width, height, false);
+    if (words.capacity() < words(width, height)) {
+      throw new IllegalArgumentException("Buffer is too small for the grid");
+    }
+    this.words = words;
+  }
+
+  // puts every wall back up
+  void closeAll() {
+    int count = words(this.width, this.height);
+    for (int i = 0; i < count; i++) {
+      this.words.put(i, -1L);
+    }
+  }
+
+  // the long holding the walls of cells 32i to 32i + 31
+  long word(int i) {
+    return this.words.get(i);
+  }
+
+  // determines if the wall with the given bit is up
+  boolean hasWall(int edge) {
+    return (this.words.get(edge >>> 6) & (1L << edge)) != 0;
+  }
+
+  // knocks down the wall with the given bit
+  void openEdge(int edge) {
+    int i = edge >>> 6;
+    this.words.put(i, this.words.get(i) & ~(1L << edge));
+  }
+
+  // puts the wall with the given bit back up
+  void closeEdge(int edge) {
+    int i = edge >>> 6;
+    this.words.put(i, this.words.get(i) | (1L << edge));
+  }
+
+}
@@ -1,4 +1,17 @@
 import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import tester.*;
 import javalib.impworld.*;
 import java.awt.Color;
@@ -8,8 +21,21 @@ import javalib.worldimages.*;
  * Press "R" to restart Maze
  * Press "B" for BFS
  * Press "D" for DFS
+ * Press "A" for A* search
+ * Press "M" for bidirectional search
+ * Press "W" for Dijkstra's algorithm over hills that cost more to climb
  * Press "C" to clear maze
  * Press "T" to toggle searched cells
+ * Press Up or Down to show more or fewer cells per tick
+ * Press "O" to show how long generating, solving and drawing take, and again
+ * to hide it and stop timing
+ * Press "+" or "-" to zoom and "H", "J", "K", "L" or Left and Right to
+ * move the view over mazes larger than it
+ * Press "1" to "4" to restart with Kruskal's, Prim's, the recursive
+ * backtracker or Wilson's algorithm
+ * Press "[" or "]" to play the search backward or forward
+ * Press "V" to race every search on the maze side by side, and again to
+ * go back to it
  * ArrayList<edges> field in maze class represent edges in the 
  * maze and not the edges in the tree
  * ArrayList<edges> field in Cell class represent edges in the 
@@ -126,69 +152,139 @@ class Cell  {
 }
 
 // represents the maze
-class Maze extends World {
+class Maze extends World implements CellColors {
   int width;
   int height;
   ArrayList<ArrayList<Cell>> board;
-  ArrayList<Cell> searchedCells;
-  ArrayList<Cell> pathCells;
-  HashMap<Cell, Cell> representatives;
+  MazeGrid grid;
+  SearchTrace trace;
+  DisjointSet representatives;
   ArrayList<Edge> edgesInTree;
   ArrayList<Edge> edges;
   Random rand;
+  // the seed the maze shown was generated from, or MazeFile.SEED_UNKNOWN
+  long seed;
   boolean toggleSeen;
+  // the events of the trace shown so far
+  int step;
+  boolean rewinding;
+  int cellsPerTick;
+  long tickBudgetNanos;
+  HashMap<String, Solver> solvers;
+  Solver lastSolver;
+  // built by index() the first time a path is asked for; guarded by this
+  TreeIndex index;
+  BoardRenderer renderer;
+  WorldScene scene;
+  Solver sceneSolver;
+  int sceneExpanded;
+  MazePregenerator upcoming;
+  boolean showMetrics;
+  MazeGenerator generator;
+  RaceView race;
+
+  // the largest number of cells a maze may hold
+  static final int MAX_CELLS = MazeGrid.MAX_CELLS;
+  // the generators the keys 1 to 4 pick, in order
+  static final String[] GENERATOR_KEYS = {"kruskal", "prim", "backtracker", "wilson"};
+  // the solvers the race shows, in order
+  static final String[] RACE_KEYS = {"b", "d", "a", "m"};
 
   // the constructor for testing
   Maze(int width, int height, Random rand) {
-    if (width < 2 || width > 100) {
-      throw new IllegalArgumentException("Width of maze has to be between 2 and 100");
-    }
-    else {
-      this.width = width;
-    }
-    if (height < 2 || height > 60) {
-      throw new IllegalArgumentException("Height of maze has to be between 2 and 60");
-    }
-    else {
-      this.height = height;
-    }
+    this.setSize(width, height);
+    this.rand = rand;
+    this.seed = MazeFile.SEED_UNKNOWN;
+    this.grid = new MazeGrid(width, height);
+    this.board = this.makeBoard();
+    this.edgesInTree = new ArrayList<Edge>();
+    this.edges = new ArrayList<Edge>();
+    this.kruskal(EdgeOrder.byWeight(this.grid, this.rand));
+    this.trace = new SearchTrace();
+    this.solvers = new HashMap<String, Solver>();
+    this.connectEdges();
+    this.cellsPerTick = 1;
+    this.renderer = new BoardRenderer(this.grid, this);
+    this.toggleSeen = true;
+    this.generator = new KruskalGenerator();
+  }
 
+  // the constructor for a maze carved by the given generator
+  Maze(int width, int height, Random rand, MazeGenerator generator) {
+    this(carve(width, height, rand, generator), rand);
+    this.generator = generator;
+  }
+
+  // the constructor for a maze whose walls are already carved into the grid
+  Maze(MazeGrid grid, Random rand) {
+    this.setSize(grid.width, grid.height);
     this.rand = rand;
+    this.seed = MazeFile.SEED_UNKNOWN;
+    this.grid = grid;
     this.board = this.makeBoard();
     this.edgesInTree = new ArrayList<Edge>();
-    this.edges = this.allEdges();
-    this.edges.sort(new EdgeComparator());
-    this.kruskal();
-    this.searchedCells = new ArrayList<Cell>();
-    this.pathCells = new ArrayList<Cell>();
+    this.edges = new ArrayList<Edge>();
+    this.edgesFromGrid();
+    this.trace = new SearchTrace();
+    this.solvers = new HashMap<String, Solver>();
     this.connectEdges();
+    this.cellsPerTick = 1;
+    this.renderer = new BoardRenderer(this.grid, this);
     this.toggleSeen = true;
   }
 
+  // the constructor for a maze saved in a file; the mazes after it are
+  // drawn from its seed, if it has one
+  Maze(MazeFile file) {
+    this(file.grid, seeded(file.seed));
+    this.seed = file.seed;
+  }
+
+  // a Random for the mazes after the one carved from the given seed, or an
+  // unseeded one for SEED_UNKNOWN. The seed is scrambled first with the
+  // SplitMix64 finalizer: a Random from the seed itself would carve the
+  // maze just loaded all over again on the first restart.
+  static Random seeded(long seed) {
+    if (seed == MazeFile.SEED_UNKNOWN) {
+      return new Random();
+    }
+    long mixed = seed + 0x9E3779B97F4A7C15L;
+    mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+    mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+    return new Random(mixed ^ (mixed >>> 31));
+  }
+
   // constructor for playing
   Maze(int width, int height) {
-    if (width < 2 || width > 100) {
-      throw new IllegalArgumentException("Width of maze has to be between 2 and 100");
+    this(width, height, new Random());
+  }
+
+  // a grid of the given size with a maze carved into it by the generator
+  static MazeGrid carve(int width, int height, Random rand, MazeGenerator generator) {
+    long started = MazeMetrics.SHARED.start();
+    MazeGrid grid = new MazeGrid(width, height);
+    generator.generate(grid, rand);
+    MazeMetrics.SHARED.generated(started, grid.cells() - 1, 0);
+    return grid;
+  }
+
+  // checks the size of the maze and sets it
+  void setSize(int width, int height) {
+    if (width < 2) {
+      throw new IllegalArgumentException("Width of maze has to be at least 2");
     }
     else {
       this.width = width;
     }
-    if (height < 2 || height > 60) {
-      throw new IllegalArgumentException("Height of maze has to be between 2 and 60");
+    if (height < 2) {
+      throw new IllegalArgumentException("Height of maze has to be at least 2");
     }
     else {
       this.height = height;
     }
-    this.rand = new Random();
-    this.board = this.makeBoard();
-    this.edgesInTree = new ArrayList<Edge>();
-    this.edges = this.allEdges();
-    this.edges.sort(new EdgeComparator());
-    this.kruskal();
-    this.searchedCells = new ArrayList<Cell>();
-    this.pathCells = new ArrayList<Cell>();
-    this.connectEdges();
-    this.toggleSeen = true;
+    if ((long) width * height > MAX_CELLS) {
+      throw new IllegalArgumentException("Maze can have at most " + MAX_CELLS + " cells");
+    }
   }
 
   // generates a gris of cells
@@ -213,40 +309,76 @@ class Maze extends World {
     return finalBoard;
   }
 
-  // replaces the Cell with the supplied Cell
-  void union(HashMap<Cell, Cell> represent, Cell cell1, Cell cell2) {
-    represent.put(cell1, cell2);
+  // the index of the given Cell in row-major order
+  int indexOf(Cell cell) {
+    return (cell.y / 10) * this.width + (cell.x / 10);
   }
 
-  // finds the parent Cell at the given point
-  Cell find(HashMap<Cell, Cell> represent, Cell cell) {
-    if (represent.get(cell).equals(cell)) {
-      return represent.get(cell);
-    }
-    else {
-      return find(represent, represent.get(cell));
-    }
+  // the Cell at the given row-major index
+  Cell cellAt(int index) {
+    return this.board.get(index / this.width).get(index % this.width);
   }
 
-  // removes random edge until first cell and last cell are in the same union
-  List<Edge> kruskal() {
-    HashMap<Cell, Cell> rep = new HashMap<Cell, Cell>();
+  // the colour the cell with the given index is shown in
+  public Color colorOf(int cell) {
+    return this.cellAt(cell).color;
+  }
+
+  // joins the sets holding the two Cells
+  boolean union(DisjointSet represent, Cell cell1, Cell cell2) {
+    return represent.union(this.indexOf(cell1), this.indexOf(cell2));
+  }
 
-    for (ArrayList<Cell> list : this.board) {
-      for (Cell cell : list) {
-        rep.put(cell, cell);
+  // finds the representative Cell of the set holding the given Cell
+  Cell find(DisjointSet represent, Cell cell) {
+    return this.cellAt(represent.find(this.indexOf(cell)));
+  }
+
+  // visits the edges in the given order, keeping those that join two
+  // different sets in edgesInTree and the rest, in the same pass, in edges
+  List<Edge> kruskal(EdgeOrder order) {
+    long started = MazeMetrics.SHARED.start();
+    int findDepth = 0;
+    DisjointSet rep = new DisjointSet(this.width * this.height);
+    this.grid.closeAll();
+
+    for (int k = 0; k < order.size(); k++) {
+      int id = order.ids[k];
+      int from = this.grid.edgeFrom(id);
+      int to = this.grid.edgeTo(id);
+      Edge e = new Edge(this.cellAt(from), this.cellAt(to), order.weights[k]);
+      if (started != MazeMetrics.OFF && rep.sets > 1) {
+        findDepth = Math.max(findDepth, Math.max(rep.depth(from), rep.depth(to)));
+      }
+      if (rep.sets > 1 && rep.union(from, to)) {
+        this.edgesInTree.add(e);
+        this.grid.openEdge(id);
+      }
+      else {
+        this.edges.add(e);
       }
     }
+    this.representatives = rep;
+    MazeMetrics.SHARED.generated(started, this.edgesInTree.size(), findDepth);
+    return this.edgesInTree;
+  }
 
-    for (Edge e : this.edges) {
-      if (!find(rep, e.from).equals(find(rep, e.to))) {
+  // splits the edges of the grid into edgesInTree and edges by its walls
+  void edgesFromGrid() {
+    DisjointSet rep = new DisjointSet(this.width * this.height);
+    for (int id : this.grid.edgeIds()) {
+      int from = this.grid.edgeFrom(id);
+      int to = this.grid.edgeTo(id);
+      Edge e = new Edge(this.cellAt(from), this.cellAt(to), 0);
+      if (this.grid.hasWall(id)) {
+        this.edges.add(e);
+      }
+      else {
         this.edgesInTree.add(e);
-        union(rep, find(rep, e.from), (find(rep, e.to)));
+        rep.union(from, to);
       }
     }
-    this.edges.removeAll(this.edgesInTree);
     this.representatives = rep;
-    return this.edgesInTree;
   }
 
   // connects the edges in the edgesInTree to the board
@@ -257,6 +389,13 @@ class Maze extends World {
     }
   }
 
+  // puts every edge that is possible to generate in edges, lightest first,
+  // the way the maze used to order them for Kruskal's algorithm
+  void sortEdges() {
+    this.edges = this.allEdges();
+    this.edges.sort(new EdgeComparator());
+  }
+
   // creates a list of all edges that are possible to generate
   ArrayList<Edge> allEdges() {
 
@@ -283,8 +422,40 @@ class Maze extends World {
     return answer;
   }
 
+  // shows the game in a window, building the next maze in the background
+  // while this one is played
+  public void bigBang(int width, int height, double tick) {
+    this.upcoming().prepare();
+    super.bigBang(width, height, tick);
+  }
+
   // makes the scene
   public WorldScene makeScene() {
+    long started = MazeMetrics.SHARED.start();
+    if (this.race != null) {
+      WorldScene raceScene = new WorldScene(1300, 800);
+      this.race.draw(raceScene);
+      raceScene.placeImageXY(new TextImage("Press 'V' to go back to the maze",
+          10, FontStyle.REGULAR, Color.BLACK), 1150, 25);
+      MazeMetrics.SHARED.scene(started);
+      return raceScene;
+    }
+    this.renderer.flush();
+    if (this.scene == null || this.showMetrics || this.sceneSolver != this.lastSolver
+        || (this.lastSolver != null && this.sceneExpanded != this.lastSolver.expanded())) {
+      this.scene = this.buildScene();
+      this.sceneSolver = this.lastSolver;
+      if (this.lastSolver != null) {
+        this.sceneExpanded = this.lastSolver.expanded();
+      }
+    }
+    MazeMetrics.SHARED.scene(started);
+    return this.scene;
+  }
+
+  // builds the scene makeScene hands out until the text on it changes; the
+  // board image in it is redrawn in place by the renderer
+  WorldScene buildScene() {
 
     WorldScene finalScene = new WorldScene(1300, 800);
 
@@ -311,58 +482,84 @@ class Maze extends World {
     WorldImage instruction5 = new TextImage("Press 'T' to toggle the searched cells", 
         10, FontStyle.REGULAR, 
         Color.BLACK);
+    WorldImage instruction6 = new TextImage("Press 'A' for A* search", 
+        10, FontStyle.REGULAR, 
+        Color.BLACK);
+
+    WorldImage instruction7 = new TextImage("Press 'M' for bidirectional search", 
+        10, FontStyle.REGULAR, 
+        Color.BLACK);
     finalScene.placeImageXY(instruction3, 1150, 300);
     finalScene.placeImageXY(instruction4, 1150, 400);
     finalScene.placeImageXY(instruction5, 1150, 500);
-
-    // draw the grid
-    for (ArrayList<Cell> list : this.board) {
-      for (Cell c : list) {
-        finalScene.placeImageXY(c.drawCell(), c.x,
-            c.y);
-      }
+    finalScene.placeImageXY(instruction6, 1150, 600);
+    finalScene.placeImageXY(instruction7, 1150, 700);
+    finalScene.placeImageXY(new TextImage("Press Up or Down to change the speed",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 50);
+    finalScene.placeImageXY(new TextImage("Press 'O' to show the timings",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 25);
+    finalScene.placeImageXY(new TextImage("Press 1 to 4 for Kruskal, Prim, backtracker or Wilson",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 75);
+    finalScene.placeImageXY(new TextImage("Press + or - to zoom and H, J, K, L to move the view",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 150);
+    finalScene.placeImageXY(new TextImage("Press [ or ] to play the search backward or forward",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 250);
+    finalScene.placeImageXY(new TextImage("Press 'V' to race every search side by side",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 350);
+    finalScene.placeImageXY(new TextImage("Press 'W' for Dijkstra over the hills",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 450);
+
+    // reports how much the last search had to expand
+    if (this.lastSolver != null) {
+      finalScene.placeImageXY(new TextImage(this.lastSolver.name() + " expanded "
+          + this.lastSolver.expanded() + " cells", 10, FontStyle.REGULAR, Color.BLACK),
+          1150, 750);
     }
 
-    // draws the edges
-    for (Edge edge : this.edges) {
-      if (edge.from.above(edge.to)) {
-        finalScene.placeImageXY(edge.drawHorzEdge(), edge.from.x,
-            edge.from.y + 5);
-      }
-      else {
-        finalScene.placeImageXY(edge.drawVertEdge(), edge.from.x + 5,
-            edge.from.y);
+    // what the metrics have recorded so far, below everything else
+    if (this.showMetrics) {
+      String[] lines = MazeMetrics.SHARED.overlay();
+      for (int i = 0; i < lines.length; i++) {
+        finalScene.placeImageXY(new TextImage(lines[i], 10, FontStyle.REGULAR, Color.RED),
+            1150, 765 + 12 * i);
       }
     }
 
+    // the board with its walls, centred on the middle of its cells
+    finalScene.placeImageXY(this.renderer.image, this.renderer.viewWidth / 2,
+        this.renderer.viewHeight / 2);
+
     return finalScene;
   }
 
+  // changes the color of the Cell and has it drawn again if it changed
+  void paint(Cell c, Color color) {
+    if (!c.color.equals(color)) {
+      c.changeColor(color);
+      this.renderer.markDirty(this.indexOf(c));
+    }
+  }
+
   // moves the player and also switches from breath-first and depth-first search.
   public void onKeyEvent(String ke) {
 
-    if (ke.equals("b") && this.board.get(0).get(0).color.equals(Color.GREEN)) {
-      this.searchedCells.clear();
-      this.pathCells.clear();
-      this.solveMaze(ke);
-    }
-    if (ke.equals("d") && this.board.get(0).get(0).color.equals(Color.GREEN)) {
-      this.searchedCells.clear();
-      this.pathCells.clear();
+    if ((ke.equals("b") || ke.equals("d") || ke.equals("a") || ke.equals("m")
+        || ke.equals("w"))
+        && this.board.get(0).get(0).color.equals(Color.GREEN)) {
+      this.clearAnimation();
       this.solveMaze(ke);
     }
     if (ke.equals("c")) {
-      this.searchedCells.clear();
-      this.pathCells.clear();
+      this.clearAnimation();
       for (ArrayList<Cell> row : this.board) {
         for (Cell c : row) {
-          c.changeColor(Color.GRAY);
+          this.paint(c, Color.GRAY);
           c.correct = false;
           c.searched = false;
         }
       }
-      this.board.get(0).get(0).changeColor(Color.GREEN);
-      this.board.get(this.height - 1).get(this.width - 1).changeColor(Color.PINK);
+      this.paint(this.board.get(0).get(0), Color.GREEN);
+      this.paint(this.board.get(this.height - 1).get(this.width - 1), Color.PINK);
       this.toggleSeen = true;
     }
     if (ke.equals("t") && this.board.get(0).get(0).color.equals(Color.PINK)) {
@@ -372,109 +569,294 @@ class Maze extends World {
       else {
         this.toggleSeen = true;
       }
+      this.applyToggle();
+    }
+    if (ke.equals("[")) {
+      this.rewinding = true;
+    }
+    if (ke.equals("]")) {
+      this.rewinding = false;
+    }
+    if (ke.equals("up")) {
+      this.setSpeed(Math.min(this.cellsPerTick * 2, 1 << 20), this.tickBudgetNanos);
+    }
+    if (ke.equals("down")) {
+      this.setSpeed(Math.max(this.cellsPerTick / 2, 1), this.tickBudgetNanos);
     }
     if (ke.equals("r")) {
-      Maze restart = new Maze(this.width, this.height, this.rand);
-      this.board = restart.board;
-      this.representatives = restart.representatives;
-      this.edgesInTree = restart.edgesInTree;
-      this.edges = restart.edges;
-      this.searchedCells = restart.searchedCells;
-      this.pathCells = restart.pathCells;
-      this.toggleSeen = true;
+      this.adopt(this.upcoming().take());
+    }
+    if (ke.equals("+") || ke.equals("=")) {
+      this.renderer.zoomIn();
+    }
+    if (ke.equals("-")) {
+      this.renderer.zoomOut();
+    }
+    if (ke.equals("h") || ke.equals("left")) {
+      this.renderer.pan(-1, 0);
+    }
+    if (ke.equals("l") || ke.equals("right")) {
+      this.renderer.pan(1, 0);
+    }
+    if (ke.equals("k")) {
+      this.renderer.pan(0, -1);
+    }
+    if (ke.equals("j")) {
+      this.renderer.pan(0, 1);
+    }
+    for (int k = 0; k < GENERATOR_KEYS.length; k++) {
+      if (ke.equals(Integer.toString(k + 1))) {
+        this.generator = MazeGenerator.forKey(GENERATOR_KEYS[k]);
+        if (this.upcoming != null) {
+          this.upcoming.discard();
+          this.upcoming = null;
+        }
+        this.adopt(this.upcoming().take());
+      }
+    }
+    if (ke.equals("v")) {
+      if (this.race == null) {
+        this.startRace();
+      }
+      else {
+        this.race = null;
+      }
+    }
+    if (ke.equals("o")) {
+      this.showMetrics = !this.showMetrics;
+      MazeMetrics.SHARED.setEnabled(this.showMetrics);
+      if (this.showMetrics) {
+        MazeMetrics.SHARED.register();
+      }
     }
   }
 
-  // solves the maze BFS or DFS given the string provided
+  // races every solver from the first cell to the last on a snapshot of
+  // this maze, on threads of their own, and shows the race in place of it
+  void startRace() {
+    SolverRace solvers = new SolverRace(this.grid.snapshot(), RACE_KEYS);
+    solvers.start(0, this.grid.cells() - 1, SolverRace.RACERS);
+    this.race = new RaceView(solvers);
+  }
+
+  // the builder of the maze the next restart shows, made when first needed
+  MazePregenerator upcoming() {
+    if (this.upcoming == null) {
+      this.upcoming = new MazePregenerator(this.width, this.height, this.rand,
+          this.generator, MazePregenerator.WORKER);
+    }
+    return this.upcoming;
+  }
+
+  // shows the given maze in place of this one, keeping the speed and the
+  // builder of the maze after it
+  void adopt(Maze restart) {
+    this.board = restart.board;
+    this.seed = restart.seed;
+    this.grid = restart.grid;
+    this.solvers = restart.solvers;
+    synchronized (this) {
+      // the index of the new grid is built when a path is first asked for
+      this.index = null;
+    }
+    this.renderer = restart.renderer;
+    this.scene = null;
+    this.lastSolver = null;
+    this.race = null;
+    this.representatives = restart.representatives;
+    this.edgesInTree = restart.edgesInTree;
+    this.edges = restart.edges;
+    this.trace = restart.trace;
+    this.step = 0;
+    this.rewinding = false;
+    this.toggleSeen = true;
+  }
+
+  // solves the maze with the strategy for the key provided
   void solveMaze(String ke) {
-    HashMap<Cell, Cell> cameFromEdge = new HashMap<Cell, Cell>();
-    ArrayList<Cell> worklist = new ArrayList<Cell>();
-    ArrayList<Cell> seen = new ArrayList<Cell>();
-    worklist.add(this.board.get(0).get(0));
-
-    while (worklist.size() > 0) {
-      Cell next = worklist.remove(0);
-      Cell last = this.board.get(this.board.size() - 1).get(this.board.get(0).size() - 1);
-      if (next.equals(last)) {
-        this.reconstruct(cameFromEdge, next);
-        return;
-      }
-      for (Edge edge : next.outer) {
-        if (!seen.contains(edge.to) && next.equals(edge.from)) {
-          if (ke.equals("d")) {
-            worklist.add(0, edge.to);
-          }
+    Solver solver = this.solver(ke);
+    int last = this.width * this.height - 1;
+    if (solver.solve(0, last)) {
+      this.trace.searched(solver);
+      this.reconstruct(solver.parents(), last);
+    }
+    MazeMetrics.SHARED.solved(solver);
+    this.lastSolver = solver;
+  }
 
-          if (ke.equals("b")) {
-            worklist.add(edge.to);
-          }
+  // the solver for the given key, made once and reused by later solves
+  Solver solver(String ke) {
+    Solver solver = this.solvers.get(ke);
+    if (solver == null) {
+      solver = Solver.forKey(ke, this.grid);
+      this.solvers.put(ke, solver);
+    }
+    return solver;
+  }
 
-          this.searchedCells.add(next);
-          seen.add(next);
-          cameFromEdge.put(edge.to, next);
-        }
-        else if (!seen.contains(edge.from) && next.equals(edge.to)) {
-          if (ke.equals("d")) {
-            worklist.add(0, edge.from);
-          }
+  // saves the walls of this maze to the given file, with its seed if known
+  void save(Path path) throws IOException {
+    int code = MazeFile.GENERATOR_UNKNOWN;
+    if (this.generator != null) {
+      code = this.generator.fileCode();
+    }
+    new MazeFile(this.grid, this.seed, code).write(path);
+  }
 
-          if (ke.equals("b")) {
-            worklist.add(edge.from);
-          }
+  // writes the board as it is shown, walls and colours, to a PNG with the
+  // given number of pixels per cell, without going through javalib
+  void exportPng(Path path, int scale) throws IOException {
+    new MazeRaster(this.grid, scale, this.renderer.levels[0].clone(),
+        ForkJoinPool.commonPool()).writePng(path);
+  }
 
-          this.searchedCells.add(next);
-          seen.add(next);
-          cameFromEdge.put(edge.from, next);
-        }
-      }
+  // answers batches of path queries on this maze across the common pool;
+  // they only read the tree index, never the cells or the lists shown
+  PathQueries queries() {
+    return new PathQueries(this.index(), ForkJoinPool.commonPool());
+  }
+
+  // the tree index of this maze, built the first time a path is asked for,
+  // so the mazes that never show one, restarts built ahead among them, do
+  // not pay for it. Synchronized, since queries may be asked for from any
+  // thread: the index is built once, and every thread that gets it sees it
+  // whole.
+  synchronized TreeIndex index() {
+    if (this.index == null) {
+      this.index = new TreeIndex(this.grid);
+    }
+    return this.index;
+  }
+
+  // shows the path between any two cells, read off the tree index
+  // instead of searched for, from goal back to start like reconstruct
+  void showPath(int start, int goal) {
+    TreeIndex index = this.index();
+    int[] path = new int[index.distance(start, goal) + 1];
+    index.path(goal, start, path);
+    for (int cell : path) {
+      Cell c = this.cellAt(cell);
+      c.correct = true;
+      this.trace.add(cell, SearchTrace.PATH);
     }
   }
 
   // reconstructs the path from the end to the beginning
-  public void reconstruct(HashMap<Cell, Cell> cameFromEdge, Cell next) {
-    this.pathCells.add(this.board.get(this.board.size() - 1).get(this.board.get(0).size() - 1));
+  public void reconstruct(int[] cameFrom, int next) {
+    this.trace.add(this.width * this.height - 1, SearchTrace.PATH);
     Cell initial = this.board.get(0).get(0);
     initial.correct = true;
-    while (initial != next) {
-      next.correct = true;
-      this.pathCells.add(cameFromEdge.get(next));
-      next = cameFromEdge.get(next);
+    while (next != 0) {
+      this.cellAt(next).correct = true;
+      next = cameFrom[next];
+      this.trace.add(next, SearchTrace.PATH);
     }
   }
 
   // onTick method
   public void onTick() {
+    long started = MazeMetrics.SHARED.start();
+    this.advance();
+    MazeMetrics.SHARED.tick(started);
+  }
 
-    if (this.searchedCells.size() > 0) {
-      Cell seen = this.searchedCells.remove(0);
-      seen.color = Color.BLUE;
-      seen.searched = true;
+  // shows the next cells of the animation, or takes back the last ones
+  // shown while rewinding, as many as a tick allows
+  void advance() {
+    if (this.race != null) {
+      this.race.advance(this.cellsPerTick);
+      return;
+    }
+    long deadline = Long.MAX_VALUE;
+    if (this.tickBudgetNanos > 0) {
+      deadline = System.nanoTime() + this.tickBudgetNanos;
     }
 
-    else if (this.pathCells.size() > 0) {
-      Cell path = this.pathCells.remove(0);
-      path.color = Color.PINK;
+    for (int advanced = 0; advanced < this.cellsPerTick; advanced++) {
+      if (this.rewinding && this.step > 0) {
+        this.unplay(--this.step);
+      }
+      else if (!this.rewinding && this.step < this.trace.size) {
+        this.play(this.step++);
+      }
+      else {
+        return;
+      }
+      if (this.tickBudgetNanos > 0 && System.nanoTime() >= deadline) {
+        return;
+      }
     }
-    if (!this.toggleSeen) {
-      for (ArrayList<Cell> row : this.board) {
-        for (Cell c : row) {
-          if (c.searched && !c.correct) {
-            c.changeColor(Color.GRAY);
-          }
-        }
+  }
+
+  // shows the given event of the trace, noting the colour it covers
+  void play(int i) {
+    int cell = this.trace.cell(i);
+    Cell c = this.cellAt(cell);
+    this.trace.covered[i] = (byte) this.renderer.code(cell);
+    if (this.trace.type(i) == SearchTrace.SEARCHED) {
+      c.searched = true;
+      if (this.toggleSeen || c.correct) {
+        this.paint(c, Color.BLUE);
       }
     }
     else {
-      for (ArrayList<Cell> row : this.board) {
-        for (Cell c : row) {
-          if (c.searched && !c.correct) {
-            c.changeColor(Color.BLUE);
-          }
-        }
+      this.paint(c, Color.PINK);
+    }
+  }
+
+  // takes back the given event of the trace, which has been shown, putting
+  // back the colour it covered
+  void unplay(int i) {
+    Cell c = this.cellAt(this.trace.cell(i));
+    if (this.trace.type(i) == SearchTrace.SEARCHED) {
+      c.searched = false;
+    }
+    this.paint(c, BoardRenderer.PALETTE[this.trace.covered[i]]);
+  }
+
+  // shows the trace as it was after the given number of events, playing
+  // or taking back only the events between there and the current step
+  void seek(int target) {
+    target = Math.max(0, Math.min(this.trace.size, target));
+    while (this.step < target) {
+      this.play(this.step++);
+    }
+    while (this.step > target) {
+      this.unplay(--this.step);
+    }
+  }
+
+  // shows or hides the searched cells shown so far that are off the path
+  void applyToggle() {
+    Color color = Color.GRAY;
+    if (this.toggleSeen) {
+      color = Color.BLUE;
+    }
+    for (int i = 0; i < this.step; i++) {
+      Cell c = this.cellAt(this.trace.cell(i));
+      if (this.trace.type(i) == SearchTrace.SEARCHED && !c.correct) {
+        this.paint(c, color);
       }
     }
   }
 
+  // sets how many cells each tick shows at most, and how long each tick may
+  // spend showing them, in nanoseconds, or 0 for no limit
+  void setSpeed(int cellsPerTick, long tickBudgetNanos) {
+    if (cellsPerTick < 1) {
+      throw new IllegalArgumentException("A tick has to show at least 1 cell");
+    }
+    this.cellsPerTick = cellsPerTick;
+    this.tickBudgetNanos = tickBudgetNanos;
+  }
+
+  // forgets the trace shown and waiting to be shown
+  void clearAnimation() {
+    this.trace.clear();
+    this.step = 0;
+    this.rewinding = false;
+  }
+
 }
 
 //tests and examples
@@ -509,7 +891,7 @@ class ExamplesMaze {
 
   EdgeComparator comp;
 
-  HashMap<Cell, Cell> hashMap;
+  DisjointSet sets;
 
   // initData
   void initData() {
@@ -532,7 +914,7 @@ class ExamplesMaze {
 
     comp = new EdgeComparator();
 
-    hashMap = new HashMap<Cell, Cell>();
+    sets = new DisjointSet(6);
 
     listEdge = new ArrayList<Edge>(Arrays.asList(this.aToB, this.aToD, this.bToC, this.bToE,
         this.bToE, this.dToE, this.cToF, this.eToF));
@@ -542,20 +924,20 @@ class ExamplesMaze {
   void testOnKeyEvent(Tester t) {
     initData();
     this.maze.onKeyEvent("b");
-    t.checkExpect(this.maze.searchedCells.size() > 0, true);
-    t.checkExpect(this.maze.pathCells.size() > 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED) > 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH) > 0, true);
     t.checkExpect(this.maze.toggleSeen, true);
     this.maze.onKeyEvent("r");
-    t.checkExpect(this.maze.searchedCells.size() == 0, true);
-    t.checkExpect(this.maze.pathCells.size() == 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED) == 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH) == 0, true);
     t.checkExpect(this.maze.toggleSeen, true);
     this.maze.onKeyEvent("d");
-    t.checkExpect(this.maze.searchedCells.size() > 0, true);
-    t.checkExpect(this.maze.pathCells.size() > 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED) > 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH) > 0, true);
     t.checkExpect(this.maze.toggleSeen, true);
     this.maze.onKeyEvent("c");
-    t.checkExpect(this.maze.searchedCells.size() == 0, true);
-    t.checkExpect(this.maze.pathCells.size() == 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED) == 0, true);
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH) == 0, true);
     t.checkExpect(this.maze.toggleSeen, true);
     this.maze.board.get(0).get(0).color = Color.PINK;
     this.maze.onKeyEvent("t");
@@ -568,18 +950,19 @@ class ExamplesMaze {
   void testSolveMaze(Tester t) {
     initData();
     this.maze.solveMaze("b");
-    t.checkExpect(this.maze.searchedCells.size() > 0, true);
-    t.checkExpect(this.maze.pathCells.get(0), this.maze.board
-        .get(this.maze.board.size() - 1).get(this.maze.board.get(0).size() - 1));
-    t.checkExpect(this.maze.pathCells.get(this.maze.pathCells.size() - 1),
-        this.maze.board.get(0).get(0));
-
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED) > 0, true);
+    SearchTrace trace = this.maze.trace;
+    t.checkExpect(this.maze.cellAt(trace.cell(trace.count(SearchTrace.SEARCHED))),
+        this.maze.board.get(this.maze.board.size() - 1).get(this.maze.board.get(0).size() - 1));
+    t.checkExpect(this.maze.cellAt(trace.cell(trace.size - 1)), this.maze.board.get(0).get(0));
+
+    int first = trace.size;
+    int length = trace.count(SearchTrace.PATH);
     this.maze.solveMaze("d");
-    t.checkExpect(this.maze.searchedCells.size() > 0, true);
-    t.checkExpect(this.maze.pathCells.get(0), this.maze.board
-        .get(this.maze.board.size() - 1).get(this.maze.board.get(0).size() - 1));
-    t.checkExpect(this.maze.pathCells.get(this.maze.pathCells.size() - 1),
-        this.maze.board.get(0).get(0));
+    t.checkExpect(this.maze.trace.size > first, true);
+    t.checkExpect(this.maze.cellAt(trace.cell(trace.size - length)),
+        this.maze.board.get(this.maze.board.size() - 1).get(this.maze.board.get(0).size() - 1));
+    t.checkExpect(this.maze.cellAt(trace.cell(trace.size - 1)), this.maze.board.get(0).get(0));
   }
 
   // tests the reconstruct method
@@ -592,36 +975,154 @@ class ExamplesMaze {
     ArrayList<ArrayList<Cell>> board1 = new ArrayList<ArrayList<Cell>>(
         Arrays.asList(row1, row2));
 
-    HashMap<Cell, Cell> cameFromEdge = new HashMap<Cell, Cell>();
-    cameFromEdge.put(b, a);
-    cameFromEdge.put(c, b);
-    cameFromEdge.put(d, c);
-    cameFromEdge.put(e, d);
-    cameFromEdge.put(f, d);
+    int[] cameFrom = new int[] {0, 0, 1, 2, 3, 3};
 
     ArrayList<Cell> reconstruct1 = new ArrayList<Cell>(Arrays.asList(f, c, b, a));
 
     this.maze.board = board1;
 
-    this.maze.reconstruct(cameFromEdge, d);
-    t.checkExpect(this.maze.pathCells, reconstruct1);
+    this.maze.reconstruct(cameFrom, 3);
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    for (int i = 0; i < this.maze.trace.size; i++) {
+      path.add(this.maze.cellAt(this.maze.trace.cell(i)));
+    }
+    t.checkExpect(path, reconstruct1);
   }
 
   // tests ontick method
   void testOnTick(Tester t) {
     initData();
-    t.checkExpect(this.maze.searchedCells.size(), 0);
-    t.checkExpect(this.maze.pathCells.size(), 0);
+    t.checkExpect(this.maze.trace.count(SearchTrace.SEARCHED), 0);
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH), 0);
 
     this.maze.onKeyEvent("b");
     this.maze.onTick();
-    t.checkExpect(this.maze.searchedCells.size(), 4);
-    t.checkExpect(this.maze.pathCells.size(), 6);
+    t.checkExpect(this.maze.trace.size - this.maze.step, 10);
+
+    this.maze.onTick();
+    t.checkExpect(this.maze.trace.size - this.maze.step, 9);
+    t.checkExpect(this.maze.cellAt(this.maze.trace.cell(1)).searched, true);
+    t.checkExpect(this.maze.cellAt(this.maze.trace.cell(2)).searched, false);
 
+    this.maze.setSpeed(5, 0);
     this.maze.onTick();
-    t.checkExpect(this.maze.searchedCells.size(), 3);
-    t.checkExpect(this.maze.pathCells.size(), 6);
+    t.checkExpect(this.maze.step, 7);
+    this.maze.onTick();
+    this.maze.onTick();
+    t.checkExpect(this.maze.step, 11);
+    t.checkExpect(this.maze.board.get(0).get(0).color, Color.PINK);
+  }
 
+  // tests showing cells within a time budget per tick
+  void testOnTickBudget(Tester t) {
+    Maze maze = new Maze(40, 30, new Random(3));
+    maze.onKeyEvent("b");
+    maze.setSpeed(1000000, 1);
+    maze.onTick();
+    t.checkExpect(maze.step >= 1, true);
+    t.checkExpect(maze.step < maze.trace.size, true);
+    t.checkException(new IllegalArgumentException("A tick has to show at least 1 cell"),
+        maze, "setSpeed", 0, 0L);
+    maze.setSpeed(1, 0);
+    maze.onKeyEvent("up");
+    maze.onKeyEvent("up");
+    t.checkExpect(maze.cellsPerTick, 4);
+    maze.onKeyEvent("down");
+    maze.onKeyEvent("down");
+    maze.onKeyEvent("down");
+    t.checkExpect(maze.cellsPerTick, 1);
+  }
+
+  // the colours of every cell of the board, in order
+  ArrayList<Color> colours(Maze maze) {
+    ArrayList<Color> colours = new ArrayList<Color>();
+    for (int cell = 0; cell < maze.grid.cells(); cell++) {
+      colours.add(maze.cellAt(cell).color);
+    }
+    return colours;
+  }
+
+  // tests recording a solve as a trace of ints
+  void testSearchTrace(Tester t) {
+    SearchTrace trace = new SearchTrace();
+    for (int i = 0; i < 40; i++) {
+      trace.add(MazeGrid.MAX_CELLS - i, i % 2);
+    }
+    t.checkExpect(trace.size, 40);
+    t.checkExpect(trace.events.length >= 40, true);
+    t.checkExpect(trace.cell(3), MazeGrid.MAX_CELLS - 3);
+    t.checkExpect(trace.type(3), SearchTrace.PATH);
+    t.checkExpect(trace.type(4), SearchTrace.SEARCHED);
+    t.checkExpect(trace.count(SearchTrace.PATH), 20);
+    trace.clear();
+    t.checkExpect(trace.size, 0);
+
+    MazeGrid grid = new MazeGrid(10, 10);
+    grid.kruskal(new Random(2));
+    Solver solver = new GridSolver(grid, false);
+    solver.solve(0, 99);
+    trace.searched(solver);
+    t.checkExpect(trace.size, solver.expanded());
+    t.checkExpect(trace.cell(trace.size - 1), solver.order()[solver.expanded() - 1]);
+  }
+
+  // tests seeking and rewinding the trace of a solve
+  void testSeekTrace(Tester t) {
+    Maze maze = new Maze(20, 20, new Random(3));
+    ArrayList<Color> before = this.colours(maze);
+    maze.onKeyEvent("b");
+    int half = maze.trace.size / 2;
+    maze.seek(half);
+    ArrayList<Color> middle = this.colours(maze);
+    maze.seek(maze.trace.size + 10);
+    t.checkExpect(maze.step, maze.trace.size);
+    ArrayList<Color> after = this.colours(maze);
+    t.checkExpect(maze.board.get(0).get(0).color, Color.PINK);
+    maze.seek(half);
+    t.checkExpect(this.colours(maze), middle);
+    maze.seek(-1);
+    t.checkExpect(maze.step, 0);
+    t.checkExpect(this.colours(maze), before);
+    t.checkExpect(maze.cellAt(maze.trace.cell(0)).searched, false);
+
+    maze.seek(maze.trace.size);
+    maze.onKeyEvent("[");
+    maze.setSpeed(maze.trace.size - half, 0);
+    maze.onTick();
+    t.checkExpect(maze.step, half);
+    t.checkExpect(this.colours(maze), middle);
+    maze.onTick();
+    maze.onTick();
+    t.checkExpect(this.colours(maze), before);
+    maze.onKeyEvent("]");
+    maze.setSpeed(maze.trace.size, 0);
+    maze.onTick();
+    t.checkExpect(this.colours(maze), after);
+  }
+
+  // tests that toggling only recolours searched cells off the path
+  void testToggleSeen(Tester t) {
+    Maze maze = new Maze(20, 20, new Random(3));
+    maze.onKeyEvent("b");
+    maze.setSpeed(maze.trace.size, 0);
+    maze.onTick();
+    Cell off = null;
+    for (int i = 0; i < maze.trace.size; i++) {
+      Cell c = maze.cellAt(maze.trace.cell(i));
+      if (maze.trace.type(i) == SearchTrace.SEARCHED && !c.correct) {
+        off = c;
+      }
+    }
+    t.checkExpect(off.color, Color.BLUE);
+    maze.onKeyEvent("t");
+    t.checkExpect(maze.toggleSeen, false);
+    t.checkExpect(off.color, Color.GRAY);
+    t.checkExpect(maze.board.get(0).get(0).color, Color.PINK);
+    maze.onKeyEvent("t");
+    t.checkExpect(off.color, Color.BLUE);
+    maze.onKeyEvent("c");
+    t.checkExpect(maze.step, 0);
+    t.checkExpect(off.color, Color.GRAY);
   }
 
   // testing the equals method in the edge class
@@ -719,44 +1220,143 @@ class ExamplesMaze {
   void testUnion(Tester t) {
     initData();
 
-    t.checkExpect(this.hashMap.isEmpty(), true);
-    this.maze.union(this.hashMap, a, b);
-    t.checkExpect(this.hashMap.isEmpty(), false);
-    t.checkExpect(this.hashMap.size(), 1);
-    t.checkExpect(this.hashMap.containsKey(a), true);
-    t.checkExpect(this.hashMap.containsValue(b), true);
-    t.checkExpect(this.hashMap.containsKey(b), false);
-    t.checkExpect(this.hashMap.containsValue(a), false);
+    t.checkExpect(this.sets.sets, 6);
+    t.checkExpect(this.maze.union(this.sets, a, b), true);
+    t.checkExpect(this.sets.sets, 5);
+    t.checkExpect(this.sets.connected(0, 1), true);
+    t.checkExpect(this.sets.connected(0, 2), false);
+    t.checkExpect(this.maze.union(this.sets, b, a), false);
+    t.checkExpect(this.sets.sets, 5);
+    t.checkExpect(this.maze.union(this.sets, c, d), true);
+    t.checkExpect(this.maze.union(this.sets, a, d), true);
+    t.checkExpect(this.sets.connected(1, 2), true);
+    t.checkExpect(this.sets.sets, 3);
+  }
+
+  // testing the union method keeps trees shallow
+  void testUnionByRank(Tester t) {
+    initData();
+    this.sets.union(0, 1);
+    t.checkExpect(this.sets.rank[this.sets.find(0)], (byte) 1);
+    this.sets.union(2, 0);
+    t.checkExpect(this.sets.find(2), this.sets.find(0));
+    t.checkExpect(this.sets.rank[this.sets.find(2)], (byte) 1);
+    this.sets.union(3, 4);
+    this.sets.union(0, 3);
+    t.checkExpect(this.sets.rank[this.sets.find(4)], (byte) 2);
   }
 
   // testing the find method
   void testFind(Tester t) {
     initData();
-    this.hashMap.put(this.a, this.e);
-    this.hashMap.put(this.b, this.a);
-    this.hashMap.put(this.c, this.e);
-    this.hashMap.put(this.d, this.e);
-    this.hashMap.put(this.e, this.e);
-    this.hashMap.put(this.f, this.d);
+    this.sets.parent[0] = 4;
+    this.sets.parent[1] = 0;
+    this.sets.parent[2] = 4;
+    this.sets.parent[3] = 4;
+    this.sets.parent[5] = 3;
+
+    t.checkExpect(this.maze.find(this.sets, this.a), this.maze.board.get(1).get(1));
+    t.checkExpect(this.maze.find(this.sets, this.b), this.maze.board.get(1).get(1));
+    t.checkExpect(this.sets.find(5), 4);
+    // path halving pointed b at its grandparent
+    t.checkExpect(this.sets.parent[1], 4);
+  }
 
-    t.checkExpect(this.maze.find(hashMap, this.a), this.e);
-    t.checkExpect(this.maze.find(hashMap, this.b), this.e);
+  // testing the reset method of DisjointSet
+  void testDisjointSetReset(Tester t) {
+    initData();
+    this.sets.union(0, 1);
+    this.sets.union(2, 3);
+    this.sets.reset();
+    t.checkExpect(this.sets.sets, 6);
+    t.checkExpect(this.sets.connected(0, 1), false);
+    t.checkExpect(this.sets.size(), 6);
+    t.checkConstructorException(
+        new IllegalArgumentException("Size of disjoint set cannot be negative"),
+        "DisjointSet", -1);
+  }
+
+  // tests the indexOf and cellAt methods
+  void testIndexOf(Tester t) {
+    initData();
+    t.checkExpect(this.maze.indexOf(this.a), 0);
+    t.checkExpect(this.maze.indexOf(this.c), 2);
+    t.checkExpect(this.maze.indexOf(this.e), 4);
+    t.checkExpect(this.maze.cellAt(4), this.maze.board.get(1).get(1));
+    t.checkExpect(this.maze.cellAt(this.maze.indexOf(this.maze.board.get(1).get(2))),
+        this.maze.board.get(1).get(2));
   }
 
   // tests the minimumSpanningTree method
   void testKruskal(Tester t) {
     initData();
-    this.maze.representatives.clear();
+    this.maze.representatives.reset();
+    t.checkExpect(this.maze.find(this.maze.representatives, 
+        this.maze.board.get(0).get(0)), this.maze.board.get(0).get(0));
+    this.maze.edges = new ArrayList<Edge>();
+    this.maze.edgesInTree = new ArrayList<Edge>();
+    this.maze.kruskal(EdgeOrder.shuffled(this.maze.grid, new Random(5)));
+    t.checkExpect(this.maze.edgesInTree.size(), 5);
+    t.checkExpect(this.maze.edges.size(), 2);
+    t.checkExpect(this.maze.representatives.sets, 1);
     for (ArrayList<Cell> row : this.maze.board) {
       for (Cell c : row) {
-        this.maze.representatives.put(c, c);
+        t.checkExpect(this.maze.find(this.maze.representatives, c),
+            this.maze.find(this.maze.representatives, this.maze.board.get(0).get(0)));
       }
     }
-    t.checkExpect(this.maze.find(this.maze.representatives, 
-        this.maze.board.get(0).get(0)), this.maze.board.get(0).get(0));
-    this.maze.kruskal();
-    t.checkExpect(this.maze.find(this.maze.representatives, 
-        this.maze.board.get(0).get(0)), this.maze.board.get(0).get(1));
+  }
+
+  // tests that kruskal builds the same maze as sorting allEdges used to
+  void testKruskalMatchesSortedEdges(Tester t) {
+    Maze maze = new Maze(20, 15, new Random(7));
+    Maze old = new Maze(20, 15, new Random(7));
+    old.rand = new Random(7);
+    old.edges = old.allEdges();
+    old.edges.sort(new EdgeComparator());
+    old.edgesInTree = new ArrayList<Edge>();
+    DisjointSet rep = new DisjointSet(old.width * old.height);
+    for (Edge e : old.edges) {
+      if (old.union(rep, e.from, e.to)) {
+        old.edgesInTree.add(e);
+      }
+    }
+    old.edges.removeAll(old.edgesInTree);
+    t.checkExpect(maze.edgesInTree, old.edgesInTree);
+    t.checkExpect(maze.edges, old.edges);
+  }
+
+  // tests the byWeight method of EdgeOrder
+  void testEdgeOrderByWeight(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    EdgeOrder order = EdgeOrder.byWeight(grid, new Random(2));
+    Random rand = new Random(2);
+    ArrayList<Integer> drawn = new ArrayList<Integer>();
+    for (int i = 0; i < 7; i++) {
+      drawn.add(rand.nextInt(1000));
+    }
+    Collections.sort(drawn);
+    t.checkExpect(order.size(), 7);
+    for (int i = 0; i < 7; i++) {
+      t.checkExpect(order.weights[i], drawn.get(i));
+    }
+    t.checkConstructorException(
+        new IllegalArgumentException("Every edge needs exactly one weight"),
+        "EdgeOrder", new int[] {1, 2}, new int[] {1});
+  }
+
+  // tests the shuffled method of EdgeOrder
+  void testEdgeOrderShuffled(Tester t) {
+    MazeGrid grid = new MazeGrid(10, 10);
+    EdgeOrder order = EdgeOrder.shuffled(grid, new Random(4));
+    int[] ids = order.ids.clone();
+    Arrays.sort(ids);
+    int[] expected = grid.edgeIds();
+    Arrays.sort(expected);
+    t.checkExpect(ids, expected);
+    t.checkExpect(order.weights[17], 17);
+    t.checkExpect(EdgeOrder.shuffled(grid, new Random(4)).ids, order.ids);
+    t.checkExpect(EdgeOrder.shuffle(new int[] {9}, new Random(1)), new int[] {9});
   }
 
   // tests the connect edges method
@@ -777,20 +1377,29 @@ class ExamplesMaze {
     t.checkExpect(this.maze.allEdges().size(), 7);
   }
 
+  // tests the sortEdges method
+  void testSortEdges(Tester t) {
+    Maze test = new Maze(40, 40, new Random(1));
+    test.sortEdges();
+    t.checkExpect(test.edges.size(), 3120);
+    boolean sorted = true;
+    for (int i = 1; i < test.edges.size(); i++) {
+      sorted = sorted && test.edges.get(i - 1).weight <= test.edges.get(i).weight;
+    }
+    t.checkExpect(sorted, true);
+  }
+
   // tests makeScene method
   void testMakeScene(Tester t) {
     initData();
 
     WorldScene scene = new WorldScene(1300, 800);
-    WorldImage a = new RectangleImage(10, 10, OutlineMode.SOLID, Color.GREEN);
-    WorldImage b = new RectangleImage(10, 10, OutlineMode.SOLID, Color.GRAY);
-    WorldImage c = new RectangleImage(10, 10, OutlineMode.SOLID, Color.GRAY);
-    WorldImage d = new RectangleImage(10, 10, OutlineMode.SOLID, Color.GRAY);
-    WorldImage e = new RectangleImage(10, 10, OutlineMode.SOLID, Color.GRAY);
-    WorldImage f = new RectangleImage(10, 10, OutlineMode.SOLID, Color.PINK);
-
-    WorldImage e1 = new RectangleImage(1, 10, OutlineMode.SOLID, Color.BLACK);
-    WorldImage e2 = new RectangleImage(1, 10, OutlineMode.SOLID, Color.BLACK);
+    ComputedPixelImage board = new ComputedPixelImage(30, 20);
+    board.setPixels(0, 0, 30, 20, Color.GRAY);
+    board.setPixels(0, 0, 10, 10, Color.GREEN);
+    board.setPixels(20, 10, 10, 10, Color.PINK);
+    board.setPixels(9, 0, 1, 10, Color.BLACK);
+    board.setPixels(19, 10, 1, 10, Color.BLACK);
 
     WorldImage text1 = new TextImage("Press 'D' for depth-first search", 
         10, FontStyle.REGULAR, Color.BLACK);
@@ -806,19 +1415,72 @@ class ExamplesMaze {
     scene.placeImageXY(text2, 1150, 200);
     scene.placeImageXY(text3, 1150, 300);
     scene.placeImageXY(text4, 1150, 400);
+    WorldImage text6 = new TextImage("Press 'A' for A* search", 
+        10, FontStyle.REGULAR, Color.BLACK);
+    WorldImage text7 = new TextImage("Press 'M' for bidirectional search", 
+        10, FontStyle.REGULAR, Color.BLACK);
     scene.placeImageXY(text5, 1150, 500);
-    scene.placeImageXY(a, 5, 5);
-    scene.placeImageXY(b, 15, 5);
-    scene.placeImageXY(c, 25, 5);
-    scene.placeImageXY(d, 5, 15);
-    scene.placeImageXY(e, 15, 15);
-    scene.placeImageXY(f, 25, 15);
-    scene.placeImageXY(e1, 10, 5);
-    scene.placeImageXY(e2, 20, 15);
+    scene.placeImageXY(text6, 1150, 600);
+    scene.placeImageXY(text7, 1150, 700);
+    scene.placeImageXY(new TextImage("Press Up or Down to change the speed",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 50);
+    scene.placeImageXY(new TextImage("Press 'O' to show the timings",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 25);
+    scene.placeImageXY(new TextImage("Press 1 to 4 for Kruskal, Prim, backtracker or Wilson",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 75);
+    scene.placeImageXY(new TextImage("Press + or - to zoom and H, J, K, L to move the view",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 150);
+    scene.placeImageXY(new TextImage("Press [ or ] to play the search backward or forward",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 250);
+    scene.placeImageXY(new TextImage("Press 'V' to race every search side by side",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 350);
+    scene.placeImageXY(new TextImage("Press 'W' for Dijkstra over the hills",
+        10, FontStyle.REGULAR, Color.BLACK), 1150, 450);
+    scene.placeImageXY(board, 15, 10);
 
     t.checkExpect(this.maze.makeScene(), scene);
   }
 
+  // tests that makeScene reuses its scene until the text on it changes
+  void testMakeSceneCached(Tester t) {
+    initData();
+    WorldScene first = this.maze.makeScene();
+    t.checkExpect(this.maze.makeScene() == first, true);
+    this.maze.onKeyEvent("b");
+    this.maze.onTick();
+    WorldScene solved = this.maze.makeScene();
+    t.checkExpect(solved == first, false);
+    t.checkExpect(this.maze.makeScene() == solved, true);
+    t.checkExpect(this.maze.renderer.image.getPixel(5, 5), Color.BLUE);
+  }
+
+  // tests drawing cells again through BoardRenderer
+  void testBoardRenderer(Tester t) {
+    initData();
+    BoardRenderer renderer = this.maze.renderer;
+    t.checkExpect(renderer.image.getPixel(3, 3), Color.GREEN);
+    t.checkExpect(renderer.image.getPixel(9, 3), Color.BLACK);
+    t.checkExpect(renderer.image.getPixel(13, 3), Color.GRAY);
+
+    this.maze.paint(this.maze.board.get(0).get(1), Color.BLUE);
+    this.maze.paint(this.maze.board.get(0).get(1), Color.PINK);
+    this.maze.paint(this.maze.board.get(1).get(0), Color.GRAY);
+    t.checkExpect(renderer.dirtyCount, 1);
+    t.checkExpect(renderer.image.getPixel(13, 3), Color.GRAY);
+    renderer.flush();
+    t.checkExpect(renderer.dirtyCount, 0);
+    t.checkExpect(renderer.image.getPixel(13, 3), Color.PINK);
+    t.checkExpect(renderer.image.getPixel(9, 3), Color.BLACK);
+
+    for (int i = 0; i < 6; i++) {
+      renderer.markDirty(i);
+      renderer.markDirty(i);
+    }
+    t.checkExpect(renderer.dirtyCount, 6);
+    renderer.flush();
+    t.checkExpect(renderer.image.getPixel(25, 15), Color.PINK);
+  }
+
   // test for above method
   void testAbove(Tester t) {
     initData();
@@ -830,12 +1492,1665 @@ class ExamplesMaze {
   void testExceptions(Tester t) {
     initData();
     t.checkConstructorException(
-        new IllegalArgumentException("Height of maze has to be between 2 and 60"),
+        new IllegalArgumentException("Height of maze has to be at least 2"),
+        "Maze",
+        10, 1, new Random());
+    t.checkConstructorException(
+        new IllegalArgumentException("Width of maze has to be at least 2"),
         "Maze",
-        10, 61, new Random());
+        1, 10, new Random());
     t.checkConstructorException(
-        new IllegalArgumentException("Width of maze has to be between 2 and 100"),
+        new IllegalArgumentException("Maze can have at most " + Maze.MAX_CELLS + " cells"),
         "Maze",
-        101, 10, new Random());
+        100000, 100000, new Random());
   } 
+
+  // tests that mazes are no longer capped at 100 by 60
+  void testLargeMaze(Tester t) {
+    Maze big = new Maze(300, 200, new Random(3));
+    t.checkExpect(big.edgesInTree.size(), 300 * 200 - 1);
+    t.checkExpect(big.representatives.sets, 1);
+  }
+
+  // tests the cell and edge numbering of MazeGrid
+  void testMazeGrid(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    t.checkExpect(grid.cells(), 6);
+    t.checkExpect(grid.edgeCount(), 7);
+    t.checkExpect(grid.walls.length, 1);
+    t.checkExpect(grid.index(2, 1), 5);
+    t.checkExpect(grid.col(5), 2);
+    t.checkExpect(grid.row(5), 1);
+    t.checkExpect(grid.edgeBetween(0, 1), 0);
+    t.checkExpect(grid.edgeBetween(3, 0), 1);
+    t.checkExpect(grid.edgeFrom(9), 4);
+    t.checkExpect(grid.edgeTo(9), 7);
+    t.checkExpect(grid.edgeTo(8), 5);
+    t.checkExpect(grid.edgeTo(3), 4);
+    t.checkExpect(grid.isEdge(4), false);
+    t.checkExpect(grid.isEdge(5), true);
+    t.checkExpect(grid.isEdge(7), false);
+    t.checkException(new IllegalArgumentException("Cells 2 and 3 are not neighbours"),
+        grid, "edgeBetween", 2, 3);
+    t.checkExpect(grid.edgeIds(), new int[] {1, 0, 3, 2, 5, 6, 8});
+    t.checkConstructorException(new IllegalArgumentException("Grid has to be at least 1 by 1"),
+        "MazeGrid", 0, 4);
+    // a 10,000 by 10,000 maze fits in 25 megabytes of walls
+    t.checkExpect(new MazeGrid(10000, 10000).walls.length, 3125000);
+  }
+
+  // tests opening and closing walls in MazeGrid
+  void testMazeGridWalls(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    int[] out = new int[4];
+    t.checkExpect(grid.hasEastWall(1), true);
+    t.checkExpect(grid.neighbours(1, out), 0);
+    grid.openEdge(grid.edgeBetween(1, 2));
+    grid.openEdge(grid.edgeBetween(1, 4));
+    grid.openEdge(grid.edgeBetween(0, 1));
+    t.checkExpect(grid.hasEastWall(1), false);
+    t.checkExpect(grid.hasSouthWall(1), false);
+    t.checkExpect(grid.isOpen(2, 1), true);
+    t.checkExpect(grid.isOpen(0, 3), false);
+    t.checkExpect(grid.degree(1), 3);
+    t.checkExpect(grid.degree(4), 1);
+    t.checkExpect(grid.neighbours(1, out), 3);
+    t.checkExpect(out, new int[] {2, 4, 0, 0});
+    t.checkExpect(grid.neighbours(4, out), 1);
+    t.checkExpect(out[0], 1);
+    grid.closeEdge(grid.edgeBetween(1, 4));
+    t.checkExpect(grid.degree(4), 0);
+    grid.closeAll();
+    t.checkExpect(grid.degree(1), 0);
+  }
+
+  // tests the kruskal method of MazeGrid
+  void testMazeGridKruskal(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 30);
+    DisjointSet sets = new DisjointSet(grid.cells());
+    t.checkExpect(grid.kruskal(grid.edgeIds(), sets), grid.cells() - 1);
+    t.checkExpect(sets.sets, 1);
+    int open = 0;
+    for (int cell = 0; cell < grid.cells(); cell++) {
+      open += grid.degree(cell);
+    }
+    t.checkExpect(open, 2 * (grid.cells() - 1));
+  }
+
+  // tests that the grid of a maze matches its edges
+  void testMazeGridOfMaze(Tester t) {
+    initData();
+    for (Edge e : this.maze.edgesInTree) {
+      t.checkExpect(this.maze.grid.isOpen(this.maze.indexOf(e.from),
+          this.maze.indexOf(e.to)), true);
+    }
+    for (Edge e : this.maze.edges) {
+      t.checkExpect(this.maze.grid.isOpen(this.maze.indexOf(e.from),
+          this.maze.indexOf(e.to)), false);
+    }
+  }
+
+  // tests building a maze from a carved grid
+  void testMazeFromGrid(Tester t) {
+    initData();
+    Maze copy = new Maze(this.maze.grid, new Random(1));
+    t.checkExpect(copy.edgesInTree.size(), 5);
+    t.checkExpect(copy.edges.size(), 2);
+    t.checkExpect(copy.representatives.sets, 1);
+    t.checkExpect(copy.makeScene(), this.maze.makeScene());
+    t.checkExpect(copy.board.get(1).get(2).outer.size(),
+        this.maze.board.get(1).get(2).outer.size());
+  }
+
+  // counts the cells reachable from the first cell of the grid and the open
+  // walls, which for a spanning tree are all cells and one fewer than that
+  int[] spanningCounts(MazeGrid grid) {
+    boolean[] seen = new boolean[grid.cells()];
+    int[] stack = new int[grid.cells()];
+    int[] out = new int[4];
+    int top = 0;
+    int reached = 1;
+    int open = 0;
+    stack[top++] = 0;
+    seen[0] = true;
+    while (top > 0) {
+      int cell = stack[--top];
+      int count = grid.neighbours(cell, out);
+      open += count;
+      for (int i = 0; i < count; i++) {
+        if (!seen[out[i]]) {
+          seen[out[i]] = true;
+          stack[top++] = out[i];
+          reached++;
+        }
+      }
+    }
+    return new int[] {reached, open / 2};
+  }
+
+  // tests that ParallelKruskal builds a single spanning tree
+  void testParallelKruskal(Tester t) {
+    ForkJoinPool three = new ForkJoinPool(3);
+    ForkJoinPool single = new ForkJoinPool(1);
+    ParallelKruskal gen = new ParallelKruskal(16, 8, three);
+    MazeGrid grid = gen.generate(100, 60, 11);
+    t.checkExpect(this.spanningCounts(grid), new int[] {6000, 5999});
+    MazeGrid ragged = gen.generate(37, 21, 11);
+    t.checkExpect(this.spanningCounts(ragged), new int[] {777, 776});
+    MazeGrid oneTile = new ParallelKruskal(64, 64, single).generate(10, 7, 2);
+    t.checkExpect(this.spanningCounts(oneTile), new int[] {70, 69});
+    t.checkConstructorException(new IllegalArgumentException("Tiles have to be at least 1 by 1"),
+        "ParallelKruskal", 0, 4, ForkJoinPool.commonPool());
+    three.shutdown();
+    single.shutdown();
+  }
+
+  // tests that ParallelKruskal does not depend on the number of threads
+  void testParallelKruskalDeterministic(Tester t) {
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    MazeGrid one = new ParallelKruskal(10, 10, single).generate(64, 48, 5);
+    MazeGrid wide = new ParallelKruskal(10, 10, four).generate(64, 48, 5);
+    MazeGrid other = new ParallelKruskal(10, 10, four).generate(64, 48, 6);
+    single.shutdown();
+    four.shutdown();
+    t.checkExpect(one.walls, wide.walls);
+    t.checkExpect(Arrays.equals(one.walls, other.walls), false);
+    // every edge weighs the same whatever tile it falls in, so the maze is
+    // the one a single tile, plain Kruskal's algorithm, carves
+    MazeGrid whole = new ParallelKruskal(64, 48, ForkJoinPool.commonPool()).generate(64, 48, 5);
+    MazeGrid thin = new ParallelKruskal(7, 3, ForkJoinPool.commonPool()).generate(64, 48, 5);
+    t.checkExpect(one.walls, whole.walls);
+    t.checkExpect(thin.walls, whole.walls);
+    long[] keys = {ParallelKruskal.key(3, 9), ParallelKruskal.key(3, 2), ParallelKruskal.key(3, 5)};
+    long[] sorted = keys.clone();
+    Arrays.sort(sorted);
+    ParallelKruskal.sortByWeight(keys);
+    t.checkExpect(keys, sorted);
+    Maze shown = new Maze(one, new Random(1));
+    t.checkExpect(shown.representatives.sets, 1);
+  }
+
+  // tests the solve method of GridSolver
+  void testGridSolver(Tester t) {
+    // 0 - 1   2
+    //     |   |
+    // 3 - 4 - 5
+    MazeGrid grid = new MazeGrid(3, 2);
+    grid.openEdge(grid.edgeBetween(0, 1));
+    grid.openEdge(grid.edgeBetween(1, 4));
+    grid.openEdge(grid.edgeBetween(3, 4));
+    grid.openEdge(grid.edgeBetween(4, 5));
+    grid.openEdge(grid.edgeBetween(2, 5));
+    int[] path = new int[6];
+
+    GridSolver bfs = new GridSolver(grid, false);
+    t.checkExpect(bfs.solve(0, 2), true);
+    t.checkExpect(bfs.expanded, 5);
+    t.checkExpect(Arrays.copyOf(bfs.order, bfs.expanded), new int[] {0, 1, 4, 5, 3});
+    t.checkExpect(bfs.path(2, path), 5);
+    t.checkExpect(Arrays.copyOf(path, 5), new int[] {2, 5, 4, 1, 0});
+
+    GridSolver dfs = new GridSolver(grid, true);
+    t.checkExpect(dfs.solve(0, 2), true);
+    t.checkExpect(Arrays.copyOf(dfs.order, dfs.expanded), new int[] {0, 1, 4, 3, 5});
+
+    // the same solver answers again from other cells
+    t.checkExpect(bfs.solve(3, 0), true);
+    t.checkExpect(bfs.path(0, path), 4);
+    t.checkExpect(Arrays.copyOf(path, 4), new int[] {0, 1, 4, 3});
+
+    grid.closeEdge(grid.edgeBetween(2, 5));
+    t.checkExpect(bfs.solve(0, 2), false);
+    t.checkExpect(bfs.expanded, 5);
+  }
+
+  // tests the solver on a maze of a million cells
+  void testGridSolverLarge(Tester t) {
+    MazeGrid grid = new ParallelKruskal().generate(1000, 1000, 3);
+    GridSolver bfs = new GridSolver(grid, false);
+    GridSolver dfs = new GridSolver(grid, true);
+    int[] path = new int[grid.cells()];
+    t.checkExpect(bfs.solve(0, grid.cells() - 1), true);
+    int length = bfs.path(grid.cells() - 1, path);
+    t.checkExpect(dfs.solve(0, grid.cells() - 1), true);
+    t.checkExpect(dfs.path(grid.cells() - 1, path), length);
+    t.checkExpect(path[length - 1], 0);
+  }
+
+  // tests that solveMaze searches every cell at most once
+  void testSolveMazeNoRepeats(Tester t) {
+    Maze maze = new Maze(30, 20, new Random(8));
+    maze.solveMaze("b");
+    HashSet<Cell> seen = new HashSet<Cell>();
+    for (int i = 0; i < maze.trace.size; i++) {
+      if (maze.trace.type(i) == SearchTrace.SEARCHED) {
+        seen.add(maze.cellAt(maze.trace.cell(i)));
+      }
+    }
+    t.checkExpect(seen.size(), maze.trace.count(SearchTrace.SEARCHED));
+    t.checkExpect(maze.solver("b"), maze.solver("b"));
+    t.checkExpect(maze.solver("d") == maze.solver("b"), false);
+    t.checkException(new IllegalArgumentException("No solver for key q"), maze, "solver", "q");
+  }
+
+  // tests the IntHeap class
+  void testIntHeap(Tester t) {
+    IntHeap heap = new IntHeap(1);
+    t.checkExpect(heap.isEmpty(), true);
+    heap.push(5, 50);
+    heap.push(2, 20);
+    heap.push(9, 90);
+    heap.push(1, 10);
+    heap.push(7, 70);
+    t.checkExpect(heap.size, 5);
+    t.checkExpect(heap.peekKey(), 1);
+    t.checkExpect(heap.pop(), 10);
+    t.checkExpect(heap.pop(), 20);
+    t.checkExpect(heap.pop(), 50);
+    heap.push(3, 30);
+    t.checkExpect(heap.pop(), 30);
+    t.checkExpect(heap.pop(), 70);
+    t.checkExpect(heap.pop(), 90);
+    t.checkExpect(heap.isEmpty(), true);
+    t.checkException(new IllegalStateException("Heap is empty"), heap, "pop");
+    heap.push(4, 40);
+    heap.clear();
+    t.checkExpect(heap.isEmpty(), true);
+  }
+
+  // tests the A* and bidirectional solvers on a small grid
+  void testOtherSolvers(Tester t) {
+    // 0 - 1   2
+    //     |   |
+    // 3 - 4 - 5
+    MazeGrid grid = new MazeGrid(3, 2);
+    grid.openEdge(grid.edgeBetween(0, 1));
+    grid.openEdge(grid.edgeBetween(1, 4));
+    grid.openEdge(grid.edgeBetween(3, 4));
+    grid.openEdge(grid.edgeBetween(4, 5));
+    grid.openEdge(grid.edgeBetween(2, 5));
+    int[] path = new int[6];
+
+    Solver astar = new AStarSolver(grid);
+    t.checkExpect(astar.solve(0, 2), true);
+    t.checkExpect(Arrays.copyOf(astar.order(), astar.expanded()), new int[] {0, 1, 4, 5});
+    t.checkExpect(astar.path(2, path), 5);
+    t.checkExpect(Arrays.copyOf(path, 5), new int[] {2, 5, 4, 1, 0});
+    t.checkExpect(astar.name(), "A*");
+
+    Solver both = new BidirectionalSolver(grid);
+    t.checkExpect(both.solve(0, 2), true);
+    t.checkExpect(Arrays.copyOf(both.order(), both.expanded()), new int[] {0, 1, 4, 2});
+    t.checkExpect(both.path(2, path), 5);
+    t.checkExpect(Arrays.copyOf(path, 5), new int[] {2, 5, 4, 1, 0});
+    t.checkExpect(both.solve(4, 4), true);
+    t.checkExpect(both.path(4, path), 1);
+    t.checkExpect(both.name(), "bidirectional");
+
+    grid.closeEdge(grid.edgeBetween(2, 5));
+    t.checkExpect(astar.solve(0, 2), false);
+    t.checkExpect(both.solve(0, 2), false);
+  }
+
+  // tests that every solver finds the one path through a large maze, and
+  // that the goal-directed ones expand fewer cells than breadth-first search
+  void testSolversAgree(Tester t) {
+    MazeGrid grid = new ParallelKruskal().generate(300, 200, 9);
+    Solver[] solvers = new Solver[] {new GridSolver(grid, false), new GridSolver(grid, true),
+        new AStarSolver(grid), new BidirectionalSolver(grid)};
+    int[] expected = new int[grid.cells()];
+    int[] path = new int[grid.cells()];
+    int goal = grid.cells() - 1;
+    t.checkExpect(solvers[0].solve(0, goal), true);
+    int length = solvers[0].path(goal, expected);
+    for (Solver solver : solvers) {
+      t.checkExpect(solver.solve(0, goal), true);
+      t.checkExpect(solver.path(goal, path), length);
+      t.checkExpect(Arrays.copyOf(path, length), Arrays.copyOf(expected, length));
+    }
+    t.checkExpect(solvers[2].expanded() <= solvers[0].expanded(), true);
+    t.checkExpect(solvers[3].expanded() <= solvers[0].expanded(), true);
+  }
+
+  // tests solving the maze with the A* and bidirectional keys
+  void testSolveMazeOtherKeys(Tester t) {
+    initData();
+    this.maze.onKeyEvent("a");
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH), 6);
+    t.checkExpect(this.maze.lastSolver.name(), "A*");
+    this.maze.onKeyEvent("c");
+    this.maze.onKeyEvent("m");
+    t.checkExpect(this.maze.trace.count(SearchTrace.PATH), 6);
+    t.checkExpect(this.maze.trace.cell(this.maze.trace.size - 1), 0);
+    t.checkExpect(this.maze.lastSolver.name(), "bidirectional");
+    t.checkExpect(this.maze.board.get(1).get(0).correct, true);
+    this.maze.onKeyEvent("r");
+    t.checkExpect(this.maze.lastSolver, null);
+  }
+
+  // tests the parents and depths of TreeIndex
+  void testTreeIndex(Tester t) {
+    // 0 - 1   2
+    //     |   |
+    // 3 - 4 - 5
+    MazeGrid grid = new MazeGrid(3, 2);
+    grid.openEdge(grid.edgeBetween(0, 1));
+    grid.openEdge(grid.edgeBetween(1, 4));
+    grid.openEdge(grid.edgeBetween(3, 4));
+    grid.openEdge(grid.edgeBetween(4, 5));
+    grid.openEdge(grid.edgeBetween(2, 5));
+    TreeIndex index = new TreeIndex(grid);
+    t.checkExpect(index.parent, new int[] {0, 0, 5, 4, 1, 4});
+    t.checkExpect(index.depth, new int[] {0, 1, 4, 3, 2, 3});
+    t.checkExpect(index.up.length, 3);
+    t.checkExpect(index.ancestor(2, 3), 1);
+    t.checkExpect(index.ancestor(2, 9), 0);
+    t.checkExpect(index.lca(2, 3), 4);
+    t.checkExpect(index.lca(3, 0), 0);
+    t.checkExpect(index.lca(5, 5), 5);
+    t.checkExpect(index.distance(2, 3), 3);
+    t.checkExpect(index.distance(0, 2), 4);
+    int[] path = new int[6];
+    t.checkExpect(index.path(2, 3, path), 4);
+    t.checkExpect(Arrays.copyOf(path, 4), new int[] {2, 5, 4, 3});
+    t.checkExpect(index.path(0, 2, path), 5);
+    t.checkExpect(Arrays.copyOf(path, 5), new int[] {0, 1, 4, 5, 2});
+    t.checkExpect(new TreeIndex(grid, 2).parent[0], 1);
+    grid.closeEdge(grid.edgeBetween(2, 5));
+    t.checkConstructorException(new IllegalArgumentException("Maze does not connect every cell"),
+        "TreeIndex", grid, 0);
+  }
+
+  // tests that TreeIndex paths match searched paths on a large maze
+  void testTreeIndexMatchesSolver(Tester t) {
+    MazeGrid grid = new ParallelKruskal(32, 32, ForkJoinPool.commonPool()).generate(200, 150, 4);
+    TreeIndex index = new TreeIndex(grid, 777);
+    Solver bfs = new GridSolver(grid, false);
+    Random rand = new Random(1);
+    int[] searched = new int[grid.cells()];
+    int[] indexed = new int[grid.cells()];
+    for (int i = 0; i < 20; i++) {
+      int a = rand.nextInt(grid.cells());
+      int b = rand.nextInt(grid.cells());
+      bfs.solve(a, b);
+      int length = bfs.path(b, searched);
+      t.checkExpect(index.distance(a, b), length - 1);
+      t.checkExpect(index.path(b, a, indexed), length);
+      t.checkExpect(Arrays.copyOf(indexed, length), Arrays.copyOf(searched, length));
+    }
+  }
+
+  // tests the showPath method
+  void testShowPath(Tester t) {
+    initData();
+    t.checkExpect(this.maze.index == null, true);
+    this.maze.showPath(0, 5);
+    t.checkExpect(this.maze.index == this.maze.index(), true);
+    t.checkExpect(this.maze.trace.size, 6);
+    t.checkExpect(this.maze.cellAt(this.maze.trace.cell(0)), this.maze.board.get(1).get(2));
+    t.checkExpect(this.maze.cellAt(this.maze.trace.cell(5)), this.maze.board.get(0).get(0));
+    this.maze.trace.clear();
+    this.maze.showPath(2, 2);
+    t.checkExpect(this.maze.trace.size, 1);
+    t.checkExpect(this.maze.cellAt(this.maze.trace.cell(0)).correct, true);
+  }
+
+  // tests the lengths and paths methods of PathQueries
+  void testPathQueries(Tester t) throws InterruptedException, ExecutionException {
+    Maze maze = new Maze(60, 40, new Random(6));
+    ForkJoinPool pool = new ForkJoinPool(3);
+    PathQueries queries = new PathQueries(maze.index(), pool);
+    Random rand = new Random(2);
+    int count = 10000;
+    int[] starts = new int[count];
+    int[] goals = new int[count];
+    for (int i = 0; i < count; i++) {
+      starts[i] = rand.nextInt(2400);
+      goals[i] = rand.nextInt(2400);
+    }
+    int[] lengths = new int[count];
+    queries.lengths(starts, goals, lengths);
+    int[] offsets = PathQueries.offsets(lengths);
+    int[] buffer = new int[offsets[count]];
+    queries.paths(starts, goals, offsets, buffer);
+    pool.shutdown();
+
+    int[] one = new int[2400];
+    for (int i = 0; i < count; i += 997) {
+      int length = maze.index().path(starts[i], goals[i], one);
+      t.checkExpect(lengths[i], length);
+      t.checkExpect(Arrays.copyOfRange(buffer, offsets[i], offsets[i + 1]),
+          Arrays.copyOf(one, length));
+    }
+    t.checkExpect(maze.queries().index, maze.index());
+
+    // threads asking a fresh maze for its index at once all get the same one
+    Maze fresh = new Maze(60, 40, new Random(7));
+    ExecutorService askers = Executors.newFixedThreadPool(4);
+    ArrayList<Future<TreeIndex>> asked = new ArrayList<Future<TreeIndex>>();
+    for (int i = 0; i < 4; i++) {
+      asked.add(askers.submit(fresh::index));
+    }
+    boolean same = true;
+    for (Future<TreeIndex> answer : asked) {
+      same = same && answer.get() == fresh.index();
+    }
+    t.checkExpect(same, true);
+    askers.shutdown();
+  }
+
+  // tests the errors of PathQueries
+  void testPathQueriesErrors(Tester t) {
+    initData();
+    PathQueries queries = this.maze.queries();
+    t.checkException(
+        new IllegalArgumentException("Every query needs a start, a goal and an answer"),
+        queries, "lengths", new int[] {0, 1}, new int[] {5}, new int[2]);
+    t.checkException(new IllegalArgumentException("Buffer is too small for the paths"),
+        queries, "paths", new int[] {0}, new int[] {5}, new int[] {0, 6}, new int[5]);
+    t.checkExpect(PathQueries.offsets(new int[] {3, 1, 4}), new int[] {0, 3, 4, 8});
+    t.checkException(new IllegalArgumentException("Paths do not fit in one buffer"),
+        queries, "offsets", new int[] {Integer.MAX_VALUE, 1});
+  }
+
+  // tests that the headless kruskal of MazeGrid builds the maze Maze does
+  void testGridKruskalMatchesMaze(Tester t) {
+    MazeGrid grid = new MazeGrid(20, 15);
+    grid.kruskal(new Random(7));
+    t.checkExpect(grid.walls, new Maze(20, 15, new Random(7)).grid.walls);
+    grid.kruskal(new Random(7));
+    t.checkExpect(grid.walls, new Maze(20, 15, new Random(7)).grid.walls);
+  }
+
+  // tests the forKey method of Solver
+  void testSolverForKey(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 3);
+    t.checkExpect(Solver.forKey("b", grid).name(), "breadth-first");
+    t.checkExpect(Solver.forKey("d", grid).name(), "depth-first");
+    t.checkExpect(Solver.forKey("a", grid).name(), "A*");
+    t.checkExpect(Solver.forKey("m", grid).name(), "bidirectional");
+  }
+
+  // tests running a batch through MazeCli
+  void testMazeCli(Tester t) throws IOException {
+    MazeCli cli = new MazeCli(new String[] {"--width", "30", "--height", "20",
+        "--seeds", "5", "7", "--solver", "m"});
+    t.checkExpect(cli.width, 30);
+    t.checkExpect(cli.fromSeed, 5L);
+    t.checkExpect(cli.generator, "kruskal");
+    StringWriter out = new StringWriter();
+    t.checkExpect(cli.run(out), 3L);
+    String[] lines = out.toString().split("\n");
+    t.checkExpect(lines.length, 4);
+    t.checkExpect(lines[0].startsWith("seed,width,height"), true);
+
+    Maze maze = new Maze(30, 20, new Random(6));
+    maze.solveMaze("m");
+    t.checkExpect(lines[2].startsWith("6,30,20,kruskal,bidirectional,"
+        + maze.trace.count(SearchTrace.PATH) + "," + maze.lastSolver.expanded() + ","), true);
+
+    StringWriter tiled = new StringWriter();
+    t.checkExpect(new MazeCli(new String[] {"--generator", "tiled", "--seeds", "1", "1"})
+        .run(tiled), 1L);
+    t.checkExpect(tiled.toString().contains("1,100,60,tiled,breadth-first,"), true);
+  }
+
+  // tests the errors of MazeCli
+  void testMazeCliErrors(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("Unknown option --size"),
+        "MazeCli", (Object) new String[] {"--size", "4"});
+    t.checkConstructorException(new IllegalArgumentException("Missing value for --width"),
+        "MazeCli", (Object) new String[] {"--width"});
+    t.checkConstructorException(new IllegalArgumentException("Mazes have to be at least 2 by 2"),
+        "MazeCli", (Object) new String[] {"--height", "1"});
+    t.checkConstructorException(new IllegalArgumentException("Seed range is empty"),
+        "MazeCli", (Object) new String[] {"--seeds", "4", "3"});
+    t.checkConstructorException(new IllegalArgumentException("Unknown generator aldous"),
+        "MazeCli", (Object) new String[] {"--generator", "aldous"});
+    t.checkConstructorException(new IllegalArgumentException("Unknown solver x"),
+        "MazeCli", (Object) new String[] {"--solver", "x"});
+    t.checkConstructorException(
+        new IllegalArgumentException("Mazes can have at most 1073741823 cells"),
+        "MazeCli", (Object) new String[] {"--width", "65536", "--height", "65536"});
+  }
+
+  // tests writing and mapping a MazeFile
+  void testMazeFile(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeGrid grid = new MazeGrid(70, 50);
+    grid.kruskal(new Random(12));
+    new MazeFile(grid, 12, MazeFile.GENERATOR_KRUSKAL).write(path);
+    t.checkExpect(Files.size(path), MazeFile.size(70, 50));
+
+    MazeFile mapped = MazeFile.open(path, false);
+    t.checkExpect(mapped.width, 70);
+    t.checkExpect(mapped.height, 50);
+    t.checkExpect(mapped.seed, 12L);
+    t.checkExpect(mapped.generator, MazeFile.GENERATOR_KRUSKAL);
+    for (int i = 0; i < grid.walls.length; i++) {
+      t.checkExpect(mapped.grid.word(i), grid.walls[i]);
+    }
+    Solver onHeap = new GridSolver(grid, false);
+    Solver onDisk = new GridSolver(mapped.grid, false);
+    t.checkExpect(onDisk.solve(0, 3499), true);
+    onHeap.solve(0, 3499);
+    t.checkExpect(onDisk.expanded(), onHeap.expanded());
+    t.checkExpect(MazeFile.load(path).grid.walls, grid.walls);
+
+    Maze maze = new Maze(MazeFile.open(path, false));
+    t.checkExpect(maze.grid.cells(), 3500);
+    t.checkExpect(maze.representatives.sets, 1);
+    t.checkExpect(maze.rand.nextInt() == new Random(12).nextInt(), false);
+    t.checkExpect(Maze.seeded(12).nextLong(), Maze.seeded(12).nextLong());
+
+    // the first restart after loading a maze carved by Maze from its seed
+    // shows a different maze, not the same one again
+    Path carved = Files.createTempFile("maze", ".maze");
+    new MazeFile(new Maze(30, 20, new Random(7)).grid, 7, MazeFile.GENERATOR_KRUSKAL)
+        .write(carved);
+    Maze loaded = new Maze(MazeFile.load(carved));
+    long[] before = loaded.grid.walls.clone();
+    loaded.onKeyEvent("r");
+    t.checkExpect(Arrays.equals(loaded.grid.walls, before), false);
+    t.checkExpect(loaded.representatives.sets, 1);
+    Files.delete(carved);
+
+    // a game saves the seed it was loaded with until it restarts
+    Path saved = Files.createTempFile("maze", ".maze");
+    maze.save(saved);
+    t.checkExpect(MazeFile.open(saved, false).seed, 12L);
+    maze.adopt(new Maze(70, 50, new Random(3)));
+    maze.save(saved);
+    MazeFile unknown = MazeFile.open(saved, false);
+    t.checkExpect(unknown.seed, MazeFile.SEED_UNKNOWN);
+    t.checkExpect(new Maze(unknown).seed, MazeFile.SEED_UNKNOWN);
+    Files.delete(saved);
+    Files.delete(path);
+  }
+
+  // tests changing a maze through a writable mapping
+  void testMappedMazeGrid(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".maze");
+    initData();
+    this.maze.save(path);
+    MazeFile file = MazeFile.open(path, true);
+    t.checkExpect(file.generator, MazeFile.GENERATOR_KRUSKAL);
+    t.checkExpect(file.grid.isOpen(0, 1), this.maze.grid.isOpen(0, 1));
+    file.grid.closeAll();
+    file.grid.openEdge(file.grid.edgeBetween(4, 5));
+    t.checkExpect(MazeFile.open(path, false).grid.isOpen(4, 5), true);
+    t.checkExpect(MazeFile.open(path, false).grid.degree(0), 0);
+    file.grid.closeEdge(file.grid.edgeBetween(4, 5));
+    t.checkExpect(MazeFile.load(path).grid.degree(4), 0);
+    t.checkConstructorException(new IllegalArgumentException("Buffer is too small for the grid"),
+        "MappedMazeGrid", 100, 100, LongBuffer.allocate(3));
+    Files.delete(path);
+  }
+
+  // tests opening files that do not hold a maze
+  void testMazeFileErrors(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".maze");
+    Files.write(path, new byte[] {1, 2, 3});
+    t.checkException(new IllegalArgumentException("Not a maze file: " + path),
+        new MazeFile(new MazeGrid(2, 2), 0, 0), "open", path, false);
+    Files.write(path, new byte[40]);
+    t.checkException(new IllegalArgumentException("Not a maze file: " + path),
+        new MazeFile(new MazeGrid(2, 2), 0, 0), "open", path, false);
+    new MazeFile(new MazeGrid(300, 300), 0, 0).write(path);
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, 100));
+    t.checkException(new IllegalArgumentException("Maze file is truncated or corrupt: " + path),
+        new MazeFile(new MazeGrid(2, 2), 0, 0), "open", path, false);
+    bytes[4] = 9;
+    Files.write(path, bytes);
+    t.checkException(new IllegalArgumentException("Unsupported maze file version 9"),
+        new MazeFile(new MazeGrid(2, 2), 0, 0), "open", path, false);
+    Files.delete(path);
+  }
+
+  // tests that EllerGenerator streams a single spanning tree
+  void testEllerGenerator(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 300);
+    new EllerGenerator(40, new Random(3)).generate(300, grid);
+    t.checkExpect(this.spanningCounts(grid), new int[] {12000, 11999});
+    MazeGrid again = new MazeGrid(40, 300);
+    new EllerGenerator(40, new Random(3)).generate(300, again);
+    t.checkExpect(again.walls, grid.walls);
+
+    // a single column is a corridor and a single row is a hallway
+    MazeGrid column = new MazeGrid(1, 9);
+    new EllerGenerator(1, new Random(3)).generate(9, column);
+    t.checkExpect(this.spanningCounts(column), new int[] {9, 8});
+    MazeGrid row = new MazeGrid(70, 1);
+    new EllerGenerator(70, new Random(3)).generate(1, row);
+    t.checkExpect(this.spanningCounts(row), new int[] {70, 69});
+
+    Maze shown = new Maze(grid, new Random(1));
+    t.checkExpect(shown.representatives.sets, 1);
+    t.checkConstructorException(new IllegalArgumentException("Width has to be at least 1"),
+        "EllerGenerator", 0, new Random());
+    t.checkException(new IllegalArgumentException("Height has to be at least 1"),
+        new EllerGenerator(4, new Random()), "generate", 0, grid);
+  }
+
+  // tests streaming the rows of a maze into a file
+  void testMazeFileWriter(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeGrid grid = new MazeGrid(45, 77);
+    new EllerGenerator(45, new Random(8)).generate(77, grid);
+    try (MazeFileWriter writer = new MazeFileWriter(path, 45, 8, MazeFile.GENERATOR_ELLER)) {
+      new EllerGenerator(45, new Random(8)).generate(77, writer);
+      t.checkException(new IllegalArgumentException("Row 77 is out of order"),
+          writer, "row", 77, new long[2], true);
+    }
+    t.checkExpect(Files.size(path), MazeFile.size(45, 77));
+    MazeFile file = MazeFile.load(path);
+    t.checkExpect(file.height, 77);
+    t.checkExpect(file.seed, 8L);
+    t.checkExpect(file.generator, MazeFile.GENERATOR_ELLER);
+    t.checkExpect(file.grid.walls, grid.walls);
+
+    // rows wider than one long, and a file closed before its last row
+    try (MazeFileWriter writer = new MazeFileWriter(path, 100, 0, MazeFile.GENERATOR_ELLER)) {
+      EllerGenerator gen = new EllerGenerator(100, new Random(2));
+      for (int y = 0; y < 5; y++) {
+        gen.nextRow(y, false, writer);
+      }
+    }
+    MazeFile early = MazeFile.open(path, false);
+    t.checkExpect(early.height, 5);
+    boolean closed = true;
+    for (int x = 0; x < 100; x++) {
+      closed = closed && early.grid.hasSouthWall(early.grid.index(x, 4));
+    }
+    t.checkExpect(closed, true);
+
+    // rows past the most cells a maze file can hold are refused
+    try (MazeFileWriter writer = new MazeFileWriter(path, 100, 0, MazeFile.GENERATOR_ELLER)) {
+      writer.rows = MazeGrid.MAX_CELLS / 100;
+      t.checkException(new IllegalArgumentException("Mazes can have at most "
+          + MazeGrid.MAX_CELLS + " cells"), writer, "row", writer.rows, new long[4], false);
+      writer.rows = 0;
+    }
+    Files.delete(path);
+  }
+
+  // tests the eller generator of MazeCli
+  void testMazeCliEller(Tester t) throws IOException {
+    StringWriter out = new StringWriter();
+    t.checkExpect(new MazeCli(new String[] {"--generator", "eller", "--seeds", "1", "2"})
+        .run(out), 2L);
+    t.checkExpect(out.toString().contains("2,100,60,eller,breadth-first,"), true);
+  }
+
+  // tests building mazes ahead of restarts with MazePregenerator
+  void testMazePregenerator(Tester t) {
+    ExecutorService worker = Executors.newSingleThreadExecutor();
+    MazePregenerator upcoming = new MazePregenerator(12, 9, new Random(4), null, worker);
+    t.checkExpect(upcoming.isReady(), false);
+    // the worker is held until this thread is waiting in take, so the first
+    // maze cannot be built before take looks for it
+    CountDownLatch busy = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    worker.execute(() -> {
+      busy.countDown();
+      this.awaitQuietly(release);
+    });
+    this.awaitQuietly(busy);
+    Thread taking = Thread.currentThread();
+    new Thread(() -> {
+      while (taking.getState() != Thread.State.WAITING) {
+        Thread.yield();
+      }
+      release.countDown();
+    }).start();
+    Maze first = upcoming.take();
+    t.checkExpect(upcoming.waited, 1);
+    Random rand = new Random(4);
+    t.checkExpect(first.grid.walls, new Maze(12, 9, rand).grid.walls);
+
+    // the second maze was started as soon as the first was taken
+    while (!upcoming.isReady()) {
+      Thread.yield();
+    }
+    Maze second = upcoming.take();
+    t.checkExpect(upcoming.ready, 1);
+    t.checkExpect(second.grid.walls, new Maze(12, 9, rand).grid.walls);
+    t.checkExpect(second.representatives.sets, 1);
+    worker.shutdownNow();
+  }
+
+  // tests that discarding a maze under way waits for it before the next one
+  void testPregeneratorDiscard(Tester t) {
+    ExecutorService workers = Executors.newFixedThreadPool(2);
+    MazeGenerator backtracker = MazeGenerator.forKey("backtracker");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    // the first build is held once it has started until this thread waits
+    MazeGenerator held = new MazeGenerator() {
+      public void generate(MazeGrid grid, java.util.random.RandomGenerator rand) {
+        if (started.getCount() == 1) {
+          started.countDown();
+          ExamplesMaze.this.awaitQuietly(release);
+        }
+        backtracker.generate(grid, rand);
+      }
+
+      public String name() {
+        return backtracker.name();
+      }
+
+      public int fileCode() {
+        return backtracker.fileCode();
+      }
+    };
+    MazePregenerator upcoming = new MazePregenerator(12, 9, new Random(4), held, workers);
+    upcoming.prepare();
+    this.awaitQuietly(started);
+    Thread discarding = Thread.currentThread();
+    new Thread(() -> {
+      while (discarding.getState() != Thread.State.WAITING) {
+        Thread.yield();
+      }
+      release.countDown();
+    }).start();
+    upcoming.discard();
+    t.checkExpect(upcoming.next, null);
+    // the worker goes on to the maze after, with the generator held, so the
+    // expected mazes are carved with one of their own
+    Random rand = new Random(4);
+    MazeGenerator own = MazeGenerator.forKey("backtracker");
+    new Maze(12, 9, rand, own);
+    t.checkExpect(upcoming.take().grid.walls, new Maze(12, 9, rand, own).grid.walls);
+    workers.shutdownNow();
+  }
+
+  // waits for the latch to open, giving up if interrupted
+  void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // tests that restarting swaps in the maze built while drawing
+  void testRestartPregenerated(Tester t) {
+    Maze game = new Maze(20, 15, new Random(9));
+    // drawing a scene leaves the next maze to bigBang, which starts it
+    game.makeScene();
+    t.checkExpect(game.upcoming, null);
+    game.upcoming().prepare();
+    t.checkExpect(game.upcoming.next != null, true);
+    Maze expected = new Maze(20, 15, new Random(9));
+    expected = new Maze(20, 15, expected.rand);
+    game.onKeyEvent("b");
+    game.onKeyEvent("r");
+    t.checkExpect(game.grid.walls, expected.grid.walls);
+    t.checkExpect(game.trace.count(SearchTrace.SEARCHED), 0);
+    t.checkExpect(game.scene, null);
+    t.checkExpect(game.upcoming.ready + game.upcoming.waited, 1);
+    t.checkExpect(game.makeScene() != null, true);
+  }
+
+  // tests running a short benchmark with MazeBenchmark
+  void testMazeBenchmark(Tester t) throws IOException {
+    MazeBenchmark bench = new MazeBenchmark(new String[] {"--sizes", "12x8,20x10",
+        "--cases", "kruskal,onTick,makeScene", "--warmup", "0", "--measure", "5"});
+    t.checkExpect(bench.sizes, new int[][] {{12, 8}, {20, 10}});
+    t.checkExpect(bench.cases, new ArrayList<String>(Arrays.asList("kruskal", "onTick",
+        "makeScene")));
+    StringWriter out = new StringWriter();
+    t.checkExpect(bench.run(out), 6);
+    String[] lines = out.toString().split("\n");
+    t.checkExpect(lines.length, 7);
+    t.checkExpect(lines[0],
+        "benchmark,width,height,cells,ops,nanosPerOp,bytesPerOp,gcCount,gcMillis");
+    t.checkExpect(lines[6].startsWith("makeScene,20,10,200,"), true);
+    t.checkExpect(new MazeBenchmark(new String[0]).cases.size(), 15);
+    t.checkExpect(bench.measure(() -> 1)[0] > 0, true);
+  }
+
+  // tests the errors of MazeBenchmark
+  void testMazeBenchmarkErrors(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("Unknown benchmark aldous"),
+        "MazeBenchmark", (Object) new String[] {"--cases", "kruskal,aldous"});
+    t.checkConstructorException(new IllegalArgumentException("Size 100 is not WIDTHxHEIGHT"),
+        "MazeBenchmark", (Object) new String[] {"--sizes", "100"});
+    t.checkConstructorException(new IllegalArgumentException("Mazes have to be at least 2 by 2"),
+        "MazeBenchmark", (Object) new String[] {"--sizes", "1x9"});
+    t.checkConstructorException(
+        new IllegalArgumentException("Benchmarks have to be measured for at least 1 ms"),
+        "MazeBenchmark", (Object) new String[] {"--measure", "0"});
+    t.checkConstructorException(new IllegalArgumentException("Unknown option --fork"),
+        "MazeBenchmark", (Object) new String[] {"--fork"});
+  }
+
+  // tests recording the engine's hot paths in MazeMetrics
+  void testMazeMetrics(Tester t) {
+    MazeMetrics off = new MazeMetrics(false);
+    t.checkExpect(off.start(), MazeMetrics.OFF);
+    off.generated(MazeMetrics.OFF, 5, 5);
+    off.scene(MazeMetrics.OFF);
+    t.checkExpect(off.getGenerations(), 0L);
+    t.checkExpect(off.getScenes(), 0L);
+
+    // a maze an earlier test's makeScene queued to be built ahead would be
+    // counted as generated too
+    this.drainWorker();
+    MazeMetrics.SHARED.reset();
+    MazeMetrics.SHARED.setEnabled(true);
+    Maze maze = new Maze(10, 8, new Random(1));
+    t.checkExpect(MazeMetrics.SHARED.getGenerations(), 1L);
+    t.checkExpect(MazeMetrics.SHARED.getUnions(), 79L);
+    t.checkExpect(MazeMetrics.SHARED.getMaxFindDepth() >= 1, true);
+    maze.solveMaze("b");
+    t.checkExpect(MazeMetrics.SHARED.getSolves(), 1L);
+    t.checkExpect(MazeMetrics.SHARED.getCellsExpanded(), (long) maze.lastSolver.expanded());
+    t.checkExpect(MazeMetrics.SHARED.getQueueHighWater(), (long) maze.lastSolver.highWater());
+    maze.makeScene();
+    maze.onTick();
+    t.checkExpect(MazeMetrics.SHARED.getScenes(), 1L);
+    t.checkExpect(MazeMetrics.SHARED.getTicks(), 1L);
+    t.checkExpect(MazeMetrics.SHARED.overlay().length, 3);
+    MazeMetrics.SHARED.setEnabled(false);
+    maze.onTick();
+    t.checkExpect(MazeMetrics.SHARED.getTicks(), 1L);
+    MazeMetrics.SHARED.reset();
+    t.checkExpect(MazeMetrics.SHARED.getSolves(), 0L);
+  }
+
+  // waits for every maze queued on the shared background worker to be built
+  void drainWorker() {
+    try {
+      MazePregenerator.WORKER.submit(() -> { }).get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("The background worker failed", e.getCause());
+    }
+  }
+
+  // tests showing the metrics with the O key and reading them through JMX
+  void testMetricsOverlay(Tester t) throws JMException {
+    initData();
+    MazeMetrics.SHARED.reset();
+    this.maze.onKeyEvent("o");
+    t.checkExpect(this.maze.showMetrics, true);
+    t.checkExpect(MazeMetrics.SHARED.isEnabled(), true);
+    this.maze.onKeyEvent("b");
+    WorldScene first = this.maze.makeScene();
+    t.checkExpect(this.maze.makeScene() == first, false);
+    t.checkExpect(ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(new ObjectName(MazeMetrics.NAME), "Solves"), 1L);
+    t.checkExpect(MazeMetrics.SHARED.overlay()[0].startsWith("generate "), true);
+    this.maze.onKeyEvent("o");
+    t.checkExpect(this.maze.showMetrics, false);
+    t.checkExpect(MazeMetrics.SHARED.isEnabled(), false);
+    MazeMetrics.SHARED.reset();
+  }
+
+  // tests the highWater method of the solvers
+  void testHighWater(Tester t) {
+    // every wall of a 2 by 2 grid down: 0 reaches 1 and 2 at once
+    MazeGrid grid = new MazeGrid(2, 2);
+    grid.openEdge(grid.edgeBetween(0, 1));
+    grid.openEdge(grid.edgeBetween(0, 2));
+    grid.openEdge(grid.edgeBetween(1, 3));
+    grid.openEdge(grid.edgeBetween(2, 3));
+    for (String key : new String[] {"b", "d", "a", "m"}) {
+      Solver solver = Solver.forKey(key, grid);
+      solver.solve(0, 3);
+      t.checkExpect(solver.highWater() >= 2, true);
+    }
+    MazeGrid corridor = new MazeGrid(5, 1);
+    for (int cell = 0; cell < 4; cell++) {
+      corridor.openEdge(corridor.edgeBetween(cell, cell + 1));
+    }
+    Solver bfs = Solver.forKey("b", corridor);
+    bfs.solve(0, 4);
+    t.checkExpect(bfs.highWater(), 1);
+  }
+
+  // tests the depth method of DisjointSet
+  void testDisjointSetDepth(Tester t) {
+    DisjointSet sets = new DisjointSet(4);
+    t.checkExpect(sets.depth(2), 0);
+    sets.union(0, 1);
+    sets.union(2, 3);
+    sets.union(0, 2);
+    t.checkExpect(sets.depth(3), 2);
+    t.checkExpect(sets.depth(0), 0);
+  }
+
+  // tests the buckets of TimeHistogram
+  void testTimeHistogram(Tester t) {
+    TimeHistogram histogram = new TimeHistogram();
+    t.checkExpect(histogram.mean(), 0.0);
+    t.checkExpect(histogram.percentile(0.99), 0.0);
+    for (int i = 0; i < 99; i++) {
+      histogram.add(1000);
+    }
+    histogram.add(1000000);
+    t.checkExpect(histogram.count(), 100L);
+    t.checkExpect(histogram.mean(), 10990.0);
+    t.checkExpect(histogram.percentile(0.99), 1024.0);
+    t.checkExpect(histogram.percentile(1.0), 1048576.0);
+    histogram.reset();
+    t.checkExpect(histogram.count(), 0L);
+  }
+
+  // tests generating a corpus of mazes with DatasetGenerator
+  void testDatasetGenerator(Tester t) throws IOException {
+    DatasetGenerator one = new DatasetGenerator(new String[] {"--width", "20", "--height",
+        "12", "--count", "9", "--seed", "42", "--threads", "1"});
+    DatasetGenerator three = new DatasetGenerator(new String[] {"--width", "20", "--height",
+        "12", "--count", "9", "--seed", "42", "--threads", "3"});
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+    t.checkExpect(one.run(first), 9L);
+    t.checkExpect(three.run(second), 9L);
+    byte[] bytes = first.toByteArray();
+    int record = (int) MazeFile.size(20, 12);
+    t.checkExpect(bytes.length, 9 * record);
+    t.checkExpect(second.toByteArray(), bytes);
+
+    // every record is a maze file of its own, carved from its own seed
+    Path path = Files.createTempFile("maze", ".maze");
+    Files.write(path, Arrays.copyOfRange(bytes, 4 * record, 5 * record));
+    MazeFile fifth = MazeFile.load(path);
+    t.checkExpect(fifth.generator, MazeFile.GENERATOR_KRUSKAL);
+    t.checkExpect(this.spanningCounts(fifth.grid), new int[] {240, 239});
+    SplittableRandom seeds = new SplittableRandom(42);
+    for (int i = 0; i < 4; i++) {
+      seeds.nextLong();
+    }
+    long seed = seeds.nextLong();
+    t.checkExpect(fifth.seed, seed);
+    ByteBuffer again = ByteBuffer.allocate(record).order(ByteOrder.LITTLE_ENDIAN);
+    new DatasetWorker(20, 12).generate(seed, false, MazeFile.GENERATOR_KRUSKAL, again);
+    t.checkExpect(Arrays.copyOf(again.array(), record),
+        Arrays.copyOfRange(bytes, 4 * record, 5 * record));
+
+    ByteArrayOutputStream eller = new ByteArrayOutputStream();
+    new DatasetGenerator(new String[] {"--width", "20", "--height", "12", "--count", "3",
+        "--generator", "eller", "--threads", "2"}).run(eller);
+    Files.write(path, Arrays.copyOfRange(eller.toByteArray(), 2 * record, 3 * record));
+    MazeFile third = MazeFile.load(path);
+    t.checkExpect(third.generator, MazeFile.GENERATOR_ELLER);
+    t.checkExpect(this.spanningCounts(third.grid), new int[] {240, 239});
+    Files.delete(path);
+    t.checkExpect(new DatasetGenerator(new String[] {"--count", "0"})
+        .run(new ByteArrayOutputStream()), 0L);
+  }
+
+  // tests the errors of DatasetGenerator
+  void testDatasetGeneratorErrors(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("Unknown option --size"),
+        "DatasetGenerator", (Object) new String[] {"--size", "4"});
+    t.checkConstructorException(new IllegalArgumentException("Missing value for --seed"),
+        "DatasetGenerator", (Object) new String[] {"--seed"});
+    t.checkConstructorException(new IllegalArgumentException("Mazes have to be at least 2 by 2"),
+        "DatasetGenerator", (Object) new String[] {"--width", "1"});
+    t.checkConstructorException(new IllegalArgumentException("Count cannot be negative"),
+        "DatasetGenerator", (Object) new String[] {"--count", "-1"});
+    t.checkConstructorException(new IllegalArgumentException("At least 1 thread is needed"),
+        "DatasetGenerator", (Object) new String[] {"--threads", "0"});
+    t.checkConstructorException(new IllegalArgumentException("Unknown generator tiled"),
+        "DatasetGenerator", (Object) new String[] {"--generator", "tiled"});
+  }
+
+  // tests that every MazeGenerator carves a single spanning tree
+  void testMazeGenerators(Tester t) {
+    for (String key : Maze.GENERATOR_KEYS) {
+      MazeGenerator generator = MazeGenerator.forKey(key);
+      t.checkExpect(generator.name(), key);
+      MazeGrid grid = new MazeGrid(40, 25);
+      generator.generate(grid, new Random(6));
+      t.checkExpect(this.spanningCounts(grid), new int[] {1000, 999});
+      // the buffers are reused for another maze of the same size
+      MazeGrid again = new MazeGrid(40, 25);
+      generator.generate(again, new Random(6));
+      t.checkExpect(again.walls, grid.walls);
+      MazeGrid other = new MazeGrid(7, 3);
+      generator.generate(other, new SplittableRandom(6));
+      t.checkExpect(this.spanningCounts(other), new int[] {21, 20});
+    }
+    MazeGrid kruskal = new MazeGrid(30, 20);
+    new KruskalGenerator().generate(kruskal, new Random(3));
+    t.checkExpect(kruskal.walls, new Maze(30, 20, new Random(3)).grid.walls);
+    t.checkExpect(new PrimGenerator().fileCode(), MazeFile.GENERATOR_PRIM);
+    t.checkExpect(new WilsonGenerator().fileCode(), MazeFile.GENERATOR_WILSON);
+    String message = null;
+    try {
+      MazeGenerator.forKey("aldous");
+    }
+    catch (IllegalArgumentException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, "No generator for key aldous");
+  }
+
+  // tests that the recursive backtracker survives a single long corridor
+  void testBacktrackerCorridor(Tester t) {
+    MazeGrid grid = new MazeGrid(1, 200000);
+    new BacktrackerGenerator().generate(grid, new Random(1));
+    t.checkExpect(this.spanningCounts(grid), new int[] {200000, 199999});
+  }
+
+  // tests the adjacent method of MazeGrid
+  void testAdjacent(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    int[] out = new int[4];
+    t.checkExpect(grid.adjacent(0, out), 2);
+    t.checkExpect(Arrays.copyOf(out, 2), new int[] {1, 3});
+    t.checkExpect(grid.adjacent(4, out), 3);
+    t.checkExpect(Arrays.copyOf(out, 3), new int[] {5, 3, 1});
+  }
+
+  // tests building and restarting mazes with other generators
+  void testMazeWithGenerator(Tester t) {
+    Maze maze = new Maze(12, 8, new Random(5), new WilsonGenerator());
+    t.checkExpect(maze.representatives.sets, 1);
+    t.checkExpect(maze.edgesInTree.size(), 95);
+    t.checkExpect(maze.generator.name(), "wilson");
+    maze.onKeyEvent("2");
+    t.checkExpect(maze.generator.name(), "prim");
+    t.checkExpect(maze.representatives.sets, 1);
+    t.checkExpect(maze.upcoming.generator.name(), "prim");
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.representatives.sets, 1);
+    maze.onKeyEvent("3");
+    t.checkExpect(maze.generator.name(), "backtracker");
+    t.checkExpect(maze.board.get(7).get(11).outer.size() > 0, true);
+  }
+
+  // tests the other generators of MazeCli
+  void testMazeCliGenerators(Tester t) throws IOException {
+    for (String key : new String[] {"prim", "backtracker", "wilson"}) {
+      StringWriter out = new StringWriter();
+      t.checkExpect(new MazeCli(new String[] {"--generator", key, "--seeds", "1", "1",
+          "--width", "20", "--height", "10"}).run(out), 1L);
+      t.checkExpect(out.toString().contains("1,20,10," + key + ",breadth-first,"), true);
+    }
+  }
+
+  // tests zooming and panning the viewport of BoardRenderer
+  void testViewport(Tester t) {
+    Maze big = new Maze(400, 300, new Random(4));
+    BoardRenderer view = big.renderer;
+    t.checkExpect(view.viewWidth, 1000);
+    t.checkExpect(view.viewHeight, 800);
+    t.checkExpect(view.visibleCols(), 100);
+    t.checkExpect(view.image.getPixel(3, 3), Color.GREEN);
+
+    big.onKeyEvent("l");
+    t.checkExpect(view.originCol, 25);
+    t.checkExpect(view.image.getPixel(3, 3), big.board.get(0).get(25).color);
+    big.onKeyEvent("j");
+    t.checkExpect(view.originRow, 20);
+    for (int i = 0; i < 40; i++) {
+      big.onKeyEvent("l");
+      big.onKeyEvent("j");
+    }
+    // the view stops at the far corner of the board
+    t.checkExpect(view.originCol, 300);
+    t.checkExpect(view.originRow, 220);
+    t.checkExpect(view.image.getPixel(995, 795), Color.PINK);
+
+    big.onKeyEvent("-");
+    t.checkExpect(view.scale, 5);
+    big.onKeyEvent("-");
+    big.onKeyEvent("-");
+    t.checkExpect(view.scale, 1);
+    t.checkExpect(view.level, 0);
+    t.checkExpect(view.originCol, 0);
+    t.checkExpect(view.image.getPixel(0, 0), Color.GREEN);
+    t.checkExpect(view.image.getPixel(399, 299), Color.PINK);
+    t.checkExpect(view.image.getPixel(400, 0), Color.WHITE);
+    big.onKeyEvent("-");
+    t.checkExpect(view.level, 1);
+    t.checkExpect(view.image.getPixel(199, 149), Color.PINK);
+    t.checkExpect(view.image.getPixel(200, 149), Color.WHITE);
+    for (int i = 0; i < 20; i++) {
+      big.onKeyEvent("-");
+    }
+    t.checkExpect(view.level, view.levels.length - 1);
+    t.checkExpect(view.image.getPixel(0, 0), Color.GREEN);
+    big.onKeyEvent("+");
+    big.onKeyEvent("=");
+    t.checkExpect(view.zoom(), view.levels.length);
+  }
+
+  // tests keeping the blocks of zoomed out views up to date
+  void testViewportLevels(Tester t) {
+    Maze maze = new Maze(300, 200, new Random(4));
+    BoardRenderer view = maze.renderer;
+    view.zoomTo(BoardRenderer.SCALES.length + 1);
+    t.checkExpect(view.level, 2);
+    t.checkExpect(view.levels[2].length, 75 * 50);
+    // a searched cell shows in the block holding it once flushed
+    maze.paint(maze.board.get(10).get(21), Color.BLUE);
+    t.checkExpect(view.levels[1][5 * 150 + 10], (byte) 1);
+    t.checkExpect(view.levels[2][2 * 75 + 5], (byte) 1);
+    t.checkExpect(view.image.getPixel(5, 2), Color.GRAY);
+    view.flush();
+    t.checkExpect(view.image.getPixel(5, 2), Color.BLUE);
+    maze.paint(maze.board.get(10).get(21), Color.GRAY);
+    view.flush();
+    t.checkExpect(view.levels[2][2 * 75 + 5], (byte) 0);
+    t.checkExpect(view.image.getPixel(5, 2), Color.GRAY);
+    t.checkExpect(view.levels[view.levels.length - 1], new byte[] {3});
+  }
+
+  // tests drawing a maze into pixels with MazeRaster
+  void testMazeRaster(Tester t) {
+    // 0 - 1   2
+    //     |   |
+    // 3 - 4 - 5
+    MazeGrid grid = new MazeGrid(3, 2);
+    grid.openEdge(grid.edgeBetween(0, 1));
+    grid.openEdge(grid.edgeBetween(1, 4));
+    grid.openEdge(grid.edgeBetween(3, 4));
+    grid.openEdge(grid.edgeBetween(4, 5));
+    grid.openEdge(grid.edgeBetween(2, 5));
+    MazeRaster raster = new MazeRaster(grid, 4);
+    BufferedImage image = raster.render();
+    t.checkExpect(image.getWidth(), 12);
+    t.checkExpect(image.getHeight(), 8);
+    t.checkExpect(image.getRGB(1, 1), Color.GREEN.getRGB());
+    t.checkExpect(image.getRGB(3, 1), Color.GREEN.getRGB());
+    t.checkExpect(image.getRGB(1, 3), Color.BLACK.getRGB());
+    t.checkExpect(image.getRGB(7, 1), Color.BLACK.getRGB());
+    t.checkExpect(image.getRGB(5, 1), Color.GRAY.getRGB());
+    t.checkExpect(image.getRGB(9, 5), Color.PINK.getRGB());
+
+    // depth-first expands 3 before it reaches 5
+    raster.solution(new GridSolver(grid, true));
+    image = raster.render();
+    t.checkExpect(image.getRGB(5, 5), Color.PINK.getRGB());
+    t.checkExpect(image.getRGB(1, 5), Color.BLUE.getRGB());
+    t.checkExpect(image.getRGB(1, 1), Color.GREEN.getRGB());
+    t.checkExpect(image.getRGB(0, 3), Color.BLACK.getRGB());
+
+    t.checkConstructorException(new IllegalArgumentException("Cells have to be at least 2 pixels"),
+        "MazeRaster", grid, 1);
+    t.checkConstructorException(new IllegalArgumentException("Every cell needs exactly one colour"),
+        "MazeRaster", grid, 2, new byte[5], ForkJoinPool.commonPool());
+    t.checkConstructorException(new IllegalArgumentException("Image would be too large"),
+        "MazeRaster", new MazeGrid(100000, 1), 200);
+  }
+
+  // tests that bands drawn in parallel and written to PNG match one image
+  void testMazeRasterPng(Tester t) throws IOException {
+    MazeGrid grid = new MazeGrid(301, 97);
+    grid.kruskal(new Random(3));
+    MazeRaster one = new MazeRaster(grid, 3);
+    one.solution(new AStarSolver(grid));
+    one.bandRows = grid.height;
+    BufferedImage whole = one.render();
+    ForkJoinPool pool = new ForkJoinPool(3);
+    MazeRaster bands = new MazeRaster(grid, 3, one.codes, pool);
+    bands.bandRows = 7;
+    BufferedImage parallel = bands.render();
+    t.checkExpect(((DataBufferInt) parallel.getRaster().getDataBuffer()).getData(),
+        ((DataBufferInt) whole.getRaster().getDataBuffer()).getData());
+
+    Path path = Files.createTempFile("maze", ".png");
+    bands.writePng(path);
+    BufferedImage read = ImageIO.read(path.toFile());
+    t.checkExpect(read.getWidth(), 903);
+    t.checkExpect(read.getHeight(), 291);
+    boolean same = true;
+    for (int y = 0; y < read.getHeight(); y++) {
+      for (int x = 0; x < read.getWidth(); x++) {
+        same = same && read.getRGB(x, y) == whole.getRGB(x, y);
+      }
+    }
+    t.checkExpect(same, true);
+    Files.delete(path);
+    pool.shutdown();
+  }
+
+  // tests exporting the board of the game to PNG
+  void testExportPng(Tester t) throws IOException {
+    initData();
+    this.maze.onKeyEvent("b");
+    this.maze.setSpeed(100, 0);
+    this.maze.onTick();
+    Path path = Files.createTempFile("maze", ".png");
+    this.maze.exportPng(path, 10);
+    BufferedImage read = ImageIO.read(path.toFile());
+    t.checkExpect(read.getWidth(), 30);
+    for (int cell = 0; cell < 6; cell++) {
+      Cell c = this.maze.cellAt(cell);
+      t.checkExpect(read.getRGB(c.x - 3, c.y - 3), c.color.getRGB());
+    }
+    Files.delete(path);
+  }
+
+  // tests that a snapshot reads like the grid it was taken of and never
+  // changes after
+  void testMazeSnapshot(Tester t) {
+    MazeGrid grid = new MazeGrid(17, 11);
+    grid.kruskal(new Random(4));
+    MazeSnapshot snapshot = grid.snapshot();
+    int[] mine = new int[4];
+    int[] theirs = new int[4];
+    boolean same = true;
+    for (int cell = 0; cell < grid.cells(); cell++) {
+      int count = snapshot.neighbours(cell, mine);
+      same = same && count == grid.neighbours(cell, theirs)
+          && snapshot.degree(cell) == grid.degree(cell);
+      for (int i = 0; i < count; i++) {
+        same = same && mine[i] == theirs[i];
+      }
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(snapshot.walls, grid.walls);
+    grid.closeAll();
+    t.checkExpect(snapshot.degree(0) > 0, true);
+    t.checkException(new IllegalStateException("Snapshots cannot change"),
+        snapshot, "openEdge", 0);
+    t.checkException(new IllegalStateException("Snapshots cannot change"),
+        snapshot, "closeAll");
+    t.checkException(new IllegalStateException("Snapshots cannot change"),
+        snapshot, "kruskal", new Random(1));
+  }
+
+  // tests racing solvers on their own threads against solving one by one
+  void testSolverRace(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 30);
+    grid.kruskal(new Random(5));
+    SolverRace race = new SolverRace(grid.snapshot(), Maze.RACE_KEYS);
+    race.start(0, grid.cells() - 1, SolverRace.RACERS);
+    race.join();
+    int[] path = new int[grid.cells()];
+    int[] expected = new int[grid.cells()];
+    for (int i = 0; i < Maze.RACE_KEYS.length; i++) {
+      Solver alone = Solver.forKey(Maze.RACE_KEYS[i], grid);
+      t.checkExpect(alone.solve(0, grid.cells() - 1), true);
+      t.checkExpect(race.isDone(i), true);
+      t.checkExpect(race.solved[i], true);
+      t.checkExpect(race.solvers[i].expanded(), alone.expanded());
+      t.checkExpect(race.solvers[i].path(grid.cells() - 1, path),
+          alone.path(grid.cells() - 1, expected));
+      t.checkExpect(race.nanos[i] > 0, true);
+    }
+    t.checkConstructorException(new IllegalArgumentException("A race needs at least one solver"),
+        "SolverRace", grid.snapshot(), new String[0]);
+  }
+
+  // tests showing a race side by side in the game
+  void testRaceView(Tester t) {
+    Maze maze = new Maze(30, 20, new Random(6));
+    maze.onKeyEvent("v");
+    t.checkExpect(maze.race != null, true);
+    maze.race.race.join();
+    t.checkExpect(maze.race.scale, 16);
+    t.checkExpect(maze.race.label(0).startsWith("breadth-first: expanded 0 of "), true);
+    maze.setSpeed(5, 0);
+    maze.onTick();
+    t.checkExpect(maze.race.shown[0], 5);
+    t.checkExpect(maze.race.shown[3], 5);
+    t.checkExpect(maze.race.finished[0], false);
+    maze.setSpeed(maze.grid.cells(), 0);
+    maze.onTick();
+    for (int i = 0; i < Maze.RACE_KEYS.length; i++) {
+      t.checkExpect(maze.race.finished[i], true);
+      t.checkExpect(maze.race.shown[i], maze.race.race.solvers[i].expanded());
+    }
+    t.checkExpect(maze.makeScene() != null, true);
+    t.checkExpect(maze.board.get(0).get(0).color, Color.GREEN);
+    maze.onKeyEvent("v");
+    t.checkExpect(maze.race, null);
+
+    Maze huge = new Maze(1200, 900, new Random(6));
+    huge.startRace();
+    t.checkExpect(huge.race.scale, 0);
+    t.checkExpect(huge.race.imageWidth, RaceView.PANEL_WIDTH);
+    t.checkExpect(huge.race.imageHeight, RaceView.PANEL_HEIGHT - RaceView.LABEL);
+    huge.race.race.join();
+    huge.setSpeed(1 << 20, 0);
+    huge.onTick();
+    t.checkExpect(huge.race.finished[2], true);
+  }
+
+  // the message a request line is refused with, or null
+  String parseError(String line, long maxCells) {
+    try {
+      MazeRequest.parse(line, maxCells);
+      return null;
+    }
+    catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+  }
+
+  // tests building, caching and coalescing the answers of the service
+  void testMazeServiceCache(Tester t) throws InterruptedException {
+    MazeService service = new MazeService(1 << 20, 1 << 20);
+    ByteBuffer first = service.get(MazeRequest.parse("MAZE 30 20 7 kruskal b", 1 << 20));
+    first.order(ByteOrder.LITTLE_ENDIAN);
+    MazeGrid grid = new MazeGrid(30, 20);
+    grid.kruskal(new Random(7));
+    t.checkExpect(first.getInt(0), MazeFile.MAGIC);
+    t.checkExpect(first.get(6), (byte) MazeFile.GENERATOR_KRUSKAL);
+    t.checkExpect(first.getLong(16), 7L);
+    t.checkExpect(first.getLong(MazeFile.HEADER), grid.word(0));
+    Solver solver = new GridSolver(grid, false);
+    solver.solve(0, grid.cells() - 1);
+    int[] path = new int[grid.cells()];
+    int length = solver.path(grid.cells() - 1, path);
+    int at = (int) MazeFile.size(30, 20);
+    t.checkExpect(first.getInt(at), length);
+    t.checkExpect(first.getInt(at + 4 * length), 0);
+    t.checkExpect(first.remaining(), at + 4 + 4 * length);
+
+    ByteBuffer again = service.get(MazeRequest.parse("MAZE  30 20 7 kruskal b", 1 << 20));
+    t.checkExpect(again.equals(first), true);
+    t.checkExpect(service.hits.get(), 1L);
+    t.checkExpect(service.misses.get(), 1L);
+    t.checkExpect(service.get(MazeRequest.parse("MAZE 30 20 7 kruskal", 1 << 20)).remaining(),
+        at);
+    t.checkExpect(service.misses.get(), 2L);
+
+    // identical requests at once are built once, whoever gets there first
+    Thread[] clients = new Thread[6];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new Thread(() -> service.get(MazeRequest.parse("MAZE 400 300 1 wilson",
+          1 << 20)));
+      clients[i].start();
+    }
+    for (Thread client : clients) {
+      client.join();
+    }
+    t.checkExpect(service.misses.get(), 3L);
+    t.checkExpect(service.hits.get() + service.coalesced.get(), 6L);
+    t.checkExpect(service.pending.isEmpty(), true);
+
+    // the least recently used answers are forgotten first
+    MazeService small = new MazeService(3 * MazeFile.size(20, 20), 1 << 20);
+    small.get(MazeRequest.parse("MAZE 20 20 1 prim", 1 << 20));
+    small.get(MazeRequest.parse("MAZE 20 20 2 prim", 1 << 20));
+    small.get(MazeRequest.parse("MAZE 20 20 3 prim", 1 << 20));
+    small.get(MazeRequest.parse("MAZE 20 20 1 prim", 1 << 20));
+    small.get(MazeRequest.parse("MAZE 20 20 4 prim", 1 << 20));
+    t.checkExpect(small.cache.keySet().toString(),
+        "[20 20 3 prim null, 20 20 1 prim null, 20 20 4 prim null]");
+    t.checkExpect(small.cachedBytes, 3 * MazeFile.size(20, 20));
+    small.get(MazeRequest.parse("MAZE 100 100 4 prim", 1 << 20));
+    t.checkExpect(small.cache.size(), 3);
+    t.checkExpect(this.parseError("MAZE 20 20 1 prim", 100), "Mazes can have at most 100 cells");
+    t.checkExpect(this.parseError("MAZE 20 20 1 aldous", 100000), "No generator for key aldous");
+    t.checkExpect(this.parseError("MAZE 20 20 1 eller q", 100000), "No solver for key q");
+    t.checkExpect(this.parseError("MAZE 20 x 1 eller", 100000),
+        "Width, height and seed have to be numbers");
+    t.checkExpect(this.parseError("GET 20 20 1 eller", 100000),
+        "Expected MAZE WIDTH HEIGHT SEED GENERATOR [SOLVER]");
+  }
+
+  // tests asking the service for mazes over its sockets
+  void testMazeServiceSocket(Tester t) throws IOException {
+    MazeService service = new MazeService(1 << 20, 1 << 16);
+    SocketAddress address = service.listen(MazeService.loopback(0));
+    try (SocketChannel channel = SocketChannel.open(address)) {
+      ByteBuffer maze = MazeService.fetch(channel, "MAZE 50 40 3 eller");
+      t.checkExpect(maze.remaining(), (int) MazeFile.size(50, 40));
+      MazeGrid grid = new MazeGrid(50, 40);
+      new EllerGenerator(50, new Random(3)).generate(40, grid);
+      t.checkExpect(maze.getLong(MazeFile.HEADER + 8), grid.word(1));
+      String refused = null;
+      try {
+        MazeService.fetch(channel, "MAZE 500 400 3 eller");
+      }
+      catch (IllegalArgumentException e) {
+        refused = e.getMessage();
+      }
+      t.checkExpect(refused, "Mazes can have at most 65536 cells");
+      t.checkExpect(MazeService.fetch(channel, "MAZE 50 40 3 eller").equals(maze), true);
+      t.checkExpect(service.hits.get(), 1L);
+    }
+
+    Path socket = Files.createTempDirectory("maze").resolve("maze.sock");
+    MazeService local = new MazeService(1 << 20, 1 << 16);
+    local.listen(UnixDomainSocketAddress.of(socket));
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+      t.checkExpect(MazeService.fetch(channel, "MAZE 50 40 3 eller b").getInt(0), MazeFile.MAGIC);
+    }
+    service.close();
+    local.close();
+    Files.delete(socket);
+    Files.delete(socket.getParent());
+  }
+
+  // tests that a build failing with an Error is answered with ERR and the
+  // connection goes on
+  void testMazeServiceFailure(Tester t) throws IOException {
+    MazeService service = new MazeService(1 << 20, 1 << 16);
+    SocketAddress address = service.listen(MazeService.loopback(0));
+    MazeRequest request = MazeRequest.parse("MAZE 20 20 1 prim", 1 << 16);
+    CompletableFuture<ByteBuffer> failed = new CompletableFuture<ByteBuffer>();
+    failed.completeExceptionally(new OutOfMemoryError("Java heap space"));
+    service.pending.put(request.key(), failed);
+    try (SocketChannel channel = SocketChannel.open(address)) {
+      String refused = null;
+      try {
+        MazeService.fetch(channel, "MAZE 20 20 1 prim");
+      }
+      catch (IllegalArgumentException e) {
+        refused = e.getMessage();
+      }
+      t.checkExpect(refused,
+          "Could not build the maze: java.lang.OutOfMemoryError: Java heap space");
+      service.pending.remove(request.key());
+      t.checkExpect(MazeService.fetch(channel, "MAZE 20 20 1 prim").remaining(),
+          (int) MazeFile.size(20, 20));
+    }
+    t.checkExpect(MazeService.unchecked(new IllegalStateException("x")).getMessage(), "x");
+    service.close();
+  }
+
+  // tests the costs of stepping into cells
+  void testTerrain(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 30);
+    Terrain hills = Terrain.hills(grid, 9);
+    t.checkExpect(hills.maxCost, 9);
+    t.checkExpect(hills.cost(grid.index(4, 16)), 9);
+    t.checkExpect(hills.cost(grid.index(12, 8)), 1);
+    t.checkExpect(Terrain.hills(grid, 9).costs, hills.costs);
+    Terrain random = Terrain.random(grid.cells(), new Random(2), 5);
+    boolean inRange = true;
+    for (int cell = 0; cell < grid.cells(); cell++) {
+      inRange = inRange && random.cost(cell) >= 1 && random.cost(cell) <= 5;
+    }
+    t.checkExpect(inRange, true);
+    t.checkExpect(random.maxCost, 5);
+    t.checkExpect(Terrain.uniform(6, 3).costs, new byte[] {3, 3, 3, 3, 3, 3});
+    t.checkConstructorException(new IllegalArgumentException("Costs have to be from 1 to 127"),
+        "Terrain", new byte[] {1, 0});
+  }
+
+  // tests Dial's buckets against the order keys should come out in
+  void testBucketQueue(Tester t) {
+    BucketQueue queue = new BucketQueue(10, 3);
+    queue.push(4, 2);
+    queue.push(7, 0);
+    queue.push(1, 3);
+    queue.push(2, 2);
+    t.checkExpect(queue.size, 4);
+    t.checkExpect(queue.pop(), 7);
+    queue.push(1, 1);
+    t.checkExpect(queue.size, 3);
+    t.checkExpect(queue.pop(), 1);
+    t.checkExpect(queue.contains(1), false);
+    int first = queue.pop();
+    int second = queue.pop();
+    t.checkExpect(first + second, 6);
+    t.checkExpect(queue.current, 2);
+    queue.push(9, 5);
+    queue.push(3, 4);
+    t.checkExpect(queue.pop(), 3);
+    t.checkExpect(queue.pop(), 9);
+    t.checkExpect(queue.isEmpty(), true);
+    t.checkException(new IllegalArgumentException("Key 9 is outside the window from 5"),
+        queue, "push", 0, 9);
+    t.checkException(new IllegalStateException("Queue is empty"), queue, "pop");
+    queue.clear();
+    t.checkExpect(queue.current, 0);
+    t.checkConstructorException(new IllegalArgumentException("Steps have to cost at least 1"),
+        "BucketQueue", 10, 0);
+  }
+
+  // tests that Dijkstra finds the cheapest costs even where there are
+  // loops, against relaxing every step until nothing changes
+  void testDijkstraSolver(Tester t) {
+    MazeGrid open = new MazeGrid(25, 20);
+    for (int edge = 0; edge < 2 * open.cells(); edge++) {
+      open.openEdge(edge);
+    }
+    Terrain terrain = Terrain.random(open.cells(), new Random(3), 9);
+    DijkstraSolver solver = new DijkstraSolver(open, terrain);
+    int goal = open.cells() - 1;
+    t.checkExpect(solver.solve(0, goal), true);
+
+    int[] best = new int[open.cells()];
+    Arrays.fill(best, Integer.MAX_VALUE);
+    best[0] = 0;
+    int[] out = new int[4];
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int cell = 0; cell < open.cells(); cell++) {
+        if (best[cell] != Integer.MAX_VALUE) {
+          int count = open.neighbours(cell, out);
+          for (int i = 0; i < count; i++) {
+            if (best[cell] + terrain.cost(out[i]) < best[out[i]]) {
+              best[out[i]] = best[cell] + terrain.cost(out[i]);
+              changed = true;
+            }
+          }
+        }
+      }
+    }
+    t.checkExpect(solver.distance(goal), best[goal]);
+    int[] path = new int[open.cells()];
+    int length = solver.path(goal, path);
+    int cost = 0;
+    for (int i = 0; i < length - 1; i++) {
+      cost += terrain.cost(path[i]);
+    }
+    t.checkExpect(cost, best[goal]);
+    t.checkExpect(path[length - 1], 0);
+    boolean closedInOrder = true;
+    for (int i = 1; i < solver.expanded(); i++) {
+      closedInOrder = closedInOrder
+          && best[solver.order()[i - 1]] <= best[solver.order()[i]];
+    }
+    t.checkExpect(closedInOrder, true);
+    t.checkExpect(solver.name(), "Dijkstra");
+    t.checkConstructorException(
+        new IllegalArgumentException("Terrain has to cover every cell of the grid"),
+        "DijkstraSolver", open, Terrain.uniform(4, 1));
+  }
+
+  // tests solving the game over the hills with Dijkstra
+  void testSolveMazeDijkstra(Tester t) {
+    Maze maze = new Maze(30, 20, new Random(5));
+    maze.onKeyEvent("w");
+    t.checkExpect(maze.lastSolver.name(), "Dijkstra");
+    Solver bfs = new GridSolver(maze.grid, false);
+    bfs.solve(0, maze.grid.cells() - 1);
+    int[] path = new int[maze.grid.cells()];
+    t.checkExpect(maze.trace.count(SearchTrace.PATH), bfs.path(maze.grid.cells() - 1, path));
+    t.checkExpect(maze.trace.count(SearchTrace.SEARCHED), maze.lastSolver.expanded());
+    maze.setSpeed(maze.trace.size, 0);
+    maze.onTick();
+    t.checkExpect(maze.board.get(0).get(0).color, Color.PINK);
+  }
+
+  // tests measuring mazes against slower ways of getting the same numbers
+  void testMazeStats(Tester t) {
+    Maze maze = new Maze(23, 17, new Random(4));
+    ForkJoinPool pool = new ForkJoinPool(3);
+    MazeStats stats = new MazeStats(pool);
+    stats.measure(maze.grid);
+
+    long[] degrees = new long[5];
+    for (ArrayList<Cell> row : maze.board) {
+      for (Cell c : row) {
+        degrees[c.outer.size()]++;
+      }
+    }
+    t.checkExpect(stats.degrees, degrees);
+    t.checkExpect(stats.deadEnds(), degrees[1]);
+
+    int diameter = 0;
+    for (int cell = 0; cell < maze.grid.cells(); cell++) {
+      for (int other = 0; other < maze.grid.cells(); other++) {
+        diameter = Math.max(diameter, maze.index().distance(cell, other));
+      }
+    }
+    t.checkExpect(stats.diameter, diameter);
+    maze.solveMaze("b");
+    t.checkExpect(stats.solution, maze.trace.count(SearchTrace.PATH));
+
+    // a single winding passage is one corridor from either end
+    MazeGrid snake = new MazeGrid(4, 3);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        snake.openEdge(2 * snake.index(col, row) + MazeGrid.EAST);
+      }
+    }
+    snake.openEdge(2 * snake.index(3, 0) + MazeGrid.SOUTH);
+    snake.openEdge(2 * snake.index(0, 1) + MazeGrid.SOUTH);
+    stats.measure(snake);
+    t.checkExpect(stats.diameter, 11);
+    t.checkExpect(stats.solution, 12);
+    t.checkExpect(stats.degrees, new long[] {0, 2, 10, 0, 0});
+    t.checkExpect(stats.riverFactor(), 12.0);
+
+    MazeGrid big = new MazeGrid(700, 400);
+    big.kruskal(new Random(5));
+    stats.measure(big);
+    long all = 0;
+    for (long count : stats.degrees) {
+      all += count;
+    }
+    t.checkExpect(all, 280000L);
+    t.checkExpect(stats.corridorCells >= stats.deadEnds(), true);
+    t.checkExpect(stats.riverFactor() > 1.0, true);    pool.shutdown();
+  }
+
+  // tests measuring every maze of a corpus
+  void testMazeStatsRun(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".corpus");
+    try (OutputStream out = Files.newOutputStream(path)) {
+      new DatasetGenerator(new String[] {"--width", "20", "--height", "12", "--count", "5",
+          "--seed", "8", "--threads", "1"}).run(out);
+    }
+    t.checkExpect(MazeFile.openAll(path).size(), 5);
+    t.checkExpect(MazeFile.openAll(path).get(3).width, 20);
+    StringWriter out = new StringWriter();
+    t.checkExpect(new MazeStats(ForkJoinPool.commonPool())
+        .run(new String[] {path.toString(), path.toString()}, out), 10L);
+    String[] lines = out.toString().split("\n");
+    t.checkExpect(lines.length, 11);
+    t.checkExpect(lines[0], MazeStats.HEADER);
+    t.checkExpect(lines[1].startsWith(MazeFile.openAll(path).get(0).seed + ",20,12,1,"), true);
+    t.checkExpect(lines[6], lines[1]);
+    Files.write(path, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+    t.checkException(new IllegalArgumentException("Not a maze file: " + path),
+        this, "openAll", path);
+    Files.delete(path);
+  }
+
+  // every maze in the given file, for checking its errors
+  ArrayList<MazeFile> openAll(Path path) throws IOException {
+    return MazeFile.openAll(path);
+  }
 }
\ No newline at end of file
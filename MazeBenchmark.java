@@ -0,0 +1,315 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// prepares the state one benchmark needs on a board of the given size,
+// outside the measured time, and returns the operation to measure; the
+// operation returns a value so that its work cannot be optimized away
+interface BenchmarkSetup {
+  LongSupplier prepare(int width, int height);
+}
+
+// measures the engine's hot paths over a range of board sizes, reporting
+// the time, the bytes allocated and the garbage collections per operation.
+// Each benchmark warms up for a while before it is measured, and runs on a
+// freshly built board so that earlier ones do not leave it warm.
+//
+//   java MazeBenchmark [--sizes 100x60,320x320,1000x1000] [--cases a,b]
+//                      [--warmup MILLIS] [--measure MILLIS] [--out FILE]
+class MazeBenchmark {
+  int[][] sizes;
+  ArrayList<String> cases;
+  long warmupMillis;
+  long measureMillis;
+  String out;
+  LinkedHashMap<String, BenchmarkSetup> setups;
+  // the sum of every result, so that no operation's result is dead
+  long sink;
+
+  MazeBenchmark(String[] args) {
+    this.setups = setups();
+    this.sizes = parseSizes("100x60,320x320,1000x1000");
+    this.cases = new ArrayList<String>(this.setups.keySet());
+    this.warmupMillis = 1000;
+    this.measureMillis = 2000;
+    this.out = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--sizes")) {
+        this.sizes = parseSizes(this.value(args, ++i));
+      }
+      else if (arg.equals("--cases")) {
+        this.cases = new ArrayList<String>();
+        for (String name : this.value(args, ++i).split(",")) {
+          if (!this.setups.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown benchmark " + name);
+          }
+          this.cases.add(name);
+        }
+      }
+      else if (arg.equals("--warmup")) {
+        this.warmupMillis = Long.parseLong(this.value(args, ++i));
+      }
+      else if (arg.equals("--measure")) {
+        this.measureMillis = Long.parseLong(this.value(args, ++i));
+      }
+      else if (arg.equals("--out")) {
+        this.out = this.value(args, ++i);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option " + arg);
+      }
+    }
+    if (this.warmupMillis < 0 || this.measureMillis < 1) {
+      throw new IllegalArgumentException("Benchmarks have to be measured for at least 1 ms");
+    }
+  }
+
+  // the value following an option
+  String value(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  // reads sizes written as WIDTHxHEIGHT, separated by commas
+  static int[][] parseSizes(String text) {
+    String[] parts = text.split(",");
+    int[][] sizes = new int[parts.length][];
+    for (int i = 0; i < parts.length; i++) {
+      String[] size = parts[i].split("x");
+      if (size.length != 2) {
+        throw new IllegalArgumentException("Size " + parts[i] + " is not WIDTHxHEIGHT");
+      }
+      sizes[i] = new int[] {Integer.parseInt(size[0]), Integer.parseInt(size[1])};
+      if (sizes[i][0] < 2 || sizes[i][1] < 2) {
+        throw new IllegalArgumentException("Mazes have to be at least 2 by 2");
+      }
+    }
+    return sizes;
+  }
+
+  // every benchmark, by name, in the order they run
+  static LinkedHashMap<String, BenchmarkSetup> setups() {
+    LinkedHashMap<String, BenchmarkSetup> setups = new LinkedHashMap<String, BenchmarkSetup>();
+    setups.put("allEdges", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      return () -> maze.allEdges().size();
+    });
+    setups.put("sortEdges", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      return () -> {
+        maze.sortEdges();
+        return maze.edges.size();
+      };
+    });
+    setups.put("edgeOrder", (width, height) -> {
+      MazeGrid grid = new MazeGrid(width, height);
+      Random rand = new Random(1);
+      return () -> EdgeOrder.byWeight(grid, rand).size();
+    });
+    setups.put("kruskal", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      EdgeOrder order = EdgeOrder.byWeight(maze.grid, new Random(1));
+      return () -> {
+        // the Maze path, building an Edge for every edge of the grid
+        maze.edgesInTree.clear();
+        maze.edges.clear();
+        return maze.kruskal(order).size();
+      };
+    });
+    setups.put("gridKruskal", (width, height) -> {
+      MazeGrid grid = new MazeGrid(width, height);
+      Random rand = new Random(1);
+      return () -> {
+        grid.kruskal(rand);
+        return grid.word(0);
+      };
+    });
+    setups.put("prim", generate("prim"));
+    setups.put("backtracker", generate("backtracker"));
+    setups.put("wilson", generate("wilson"));
+    setups.put("unionFind", (width, height) -> {
+      MazeGrid grid = new MazeGrid(width, height);
+      int[] order = EdgeOrder.shuffle(grid.edgeIds(), new Random(1));
+      DisjointSet sets = new DisjointSet(grid.cells());
+      return () -> {
+        sets.reset();
+        for (int edge : order) {
+          sets.union(grid.edgeFrom(edge), grid.edgeTo(edge));
+        }
+        return sets.find(grid.cells() - 1);
+      };
+    });
+    setups.put("solveBfs", solve("b"));
+    setups.put("solveDfs", solve("d"));
+    setups.put("solveDijkstra", solve("w"));
+    setups.put("reconstruct", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      Solver solver = maze.solver("b");
+      solver.solve(0, maze.grid.cells() - 1);
+      int[] parents = solver.parents();
+      return () -> {
+        maze.trace.clear();
+        maze.reconstruct(parents, maze.grid.cells() - 1);
+        return maze.trace.size;
+      };
+    });
+    setups.put("onTick", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      maze.solveMaze("b");
+      maze.setSpeed(Integer.MAX_VALUE, 0);
+      return () -> {
+        // rewinds the whole search and path, then replays it in one tick
+        maze.seek(0);
+        maze.onTick();
+        return maze.renderer.dirtyCount;
+      };
+    });
+    setups.put("makeScene", (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      return () -> {
+        // draws every cell and the scene around the board again
+        for (int cell = 0; cell < maze.grid.cells(); cell++) {
+          maze.renderer.markDirty(cell);
+        }
+        maze.scene = null;
+        return maze.makeScene().hashCode();
+      };
+    });
+    return setups;
+  }
+
+  // a benchmark of carving a maze with the generator for the given key
+  static BenchmarkSetup generate(String key) {
+    return (width, height) -> {
+      MazeGrid grid = new MazeGrid(width, height);
+      MazeGenerator generator = MazeGenerator.forKey(key);
+      Random rand = new Random(1);
+      return () -> {
+        grid.closeAll();
+        generator.generate(grid, rand);
+        return grid.word(0);
+      };
+    };
+  }
+
+  // a benchmark of solving a maze with the strategy for the given key
+  static BenchmarkSetup solve(String key) {
+    return (width, height) -> {
+      Maze maze = new Maze(width, height, new Random(1));
+      return () -> {
+        maze.clearAnimation();
+        maze.solveMaze(key);
+        return maze.trace.size;
+      };
+    };
+  }
+
+  // runs every benchmark on every size, writing a line for each, and
+  // returns how many it measured
+  int run(Writer writer) throws IOException {
+    writer.write("benchmark,width,height,cells,ops,nanosPerOp,bytesPerOp,gcCount,gcMillis\n");
+    int count = 0;
+    for (int[] size : this.sizes) {
+      for (String name : this.cases) {
+        LongSupplier op = this.setups.get(name).prepare(size[0], size[1]);
+        this.repeat(op, this.warmupMillis);
+        System.gc();
+        long[] result = this.measure(op);
+        writer.write(name + "," + size[0] + "," + size[1] + "," + (long) size[0] * size[1]
+            + "," + result[0] + "," + result[1] / result[0] + "," + result[2] / result[0]
+            + "," + result[3] + "," + result[4] + "\n");
+        writer.flush();
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // runs the operation at least once and until the given time has passed,
+  // and returns how many times it ran
+  long repeat(LongSupplier op, long millis) {
+    long end = System.nanoTime() + millis * 1000000;
+    long ops = 0;
+    do {
+      this.sink += op.getAsLong();
+      ops++;
+    } while (System.nanoTime() < end);
+    return ops;
+  }
+
+  // measures the operation for the measuring time: the number of runs, the
+  // nanoseconds they took, the bytes this thread allocated, and the number
+  // and milliseconds of garbage collections, or -1 bytes if the JVM cannot
+  // count allocations (reported as -1 bytes per run)
+  long[] measure(LongSupplier op) {
+    long gcCount = 0;
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount -= gc.getCollectionCount();
+      gcMillis -= gc.getCollectionTime();
+    }
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    long ops = this.repeat(op, this.measureMillis);
+    long nanos = System.nanoTime() - start;
+    long bytes = allocatedBytes();
+    if (bytes < 0 || allocated < 0) {
+      bytes = -ops;
+    }
+    else {
+      bytes -= allocated;
+    }
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += gc.getCollectionCount();
+      gcMillis += gc.getCollectionTime();
+    }
+    return new long[] {ops, nanos, bytes, gcCount, gcMillis};
+  }
+
+  // the bytes this thread has allocated so far, or -1 if the JVM cannot tell
+  static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  // runs the benchmarks described by the arguments
+  public static void main(String[] args) throws IOException {
+    MazeBenchmark bench;
+    try {
+      bench = new MazeBenchmark(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: java MazeBenchmark [--sizes WxH,...] [--cases NAME,...]"
+          + " [--warmup MILLIS] [--measure MILLIS] [--out FILE]");
+      System.exit(2);
+      return;
+    }
+    Writer writer;
+    if (bench.out == null) {
+      writer = new BufferedWriter(new OutputStreamWriter(System.out));
+    }
+    else {
+      writer = new BufferedWriter(new FileWriter(bench.out));
+    }
+    bench.run(writer);
+    writer.close();
+  }
+
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+// generates and solves a batch of mazes without the javalib World, writing
+// one line of results per maze. Only the headless core is loaded: MazeGrid,
+// the generators and the solvers, never javalib, AWT or Cell colours.
+//
+//   java MazeCli [--width W] [--height H] [--seeds FROM TO]
+//                [--generator kruskal|tiled|eller|prim|backtracker|wilson]
+//                [--solver b|d|a|m|w] [--out FILE]
+//
+// kruskal builds exactly the maze new Maze(W, H, new Random(seed)) does;
+// tiled uses ParallelKruskal on the common pool; eller streams the rows of
+// an EllerGenerator straight into the grid; prim, backtracker and wilson
+// use those MazeGenerators.
+class MazeCli {
+  int width;
+  int height;
+  long fromSeed;
+  long toSeed;
+  String generator;
+  String solver;
+  String out;
+
+  MazeCli(String[] args) {
+    this.width = 100;
+    this.height = 60;
+    this.fromSeed = 0;
+    this.toSeed = 99;
+    this.generator = "kruskal";
+    this.solver = "b";
+    this.out = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--width")) {
+        this.width = Integer.parseInt(this.value(args, ++i));
+      }
+      else if (arg.equals("--height")) {
+        this.height = Integer.parseInt(this.value(args, ++i));
+      }
+      else if (arg.equals("--seeds")) {
+        this.fromSeed = Long.parseLong(this.value(args, ++i));
+        this.toSeed = Long.parseLong(this.value(args, ++i));
+      }
+      else if (arg.equals("--generator")) {
+        this.generator = this.value(args, ++i);
+      }
+      else if (arg.equals("--solver")) {
+        this.solver = this.value(args, ++i);
+      }
+      else if (arg.equals("--out")) {
+        this.out = this.value(args, ++i);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option " + arg);
+      }
+    }
+    if (this.width < 2 || this.height < 2) {
+      throw new IllegalArgumentException("Mazes have to be at least 2 by 2");
+    }
+    if ((long) this.width * this.height > MazeGrid.MAX_CELLS) {
+      throw new IllegalArgumentException("Mazes can have at most " + MazeGrid.MAX_CELLS
+          + " cells");
+    }
+    if (this.toSeed < this.fromSeed) {
+      throw new IllegalArgumentException("Seed range is empty");
+    }
+    if (!this.generator.equals("tiled") && !this.generator.equals("eller")) {
+      try {
+        MazeGenerator.forKey(this.generator);
+      }
+      catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown generator " + this.generator);
+      }
+    }
+    try {
+      Solver.forKey(this.solver, new MazeGrid(1, 1));
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown solver " + this.solver);
+    }
+  }
+
+  // the value following an option
+  String value(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  // generates and solves every maze in the seed range, writing a line for
+  // each, and returns how many it made; the grid and solver are reused
+  long run(Writer writer) throws IOException {
+    MazeGrid grid = new MazeGrid(this.width, this.height);
+    Solver solve = Solver.forKey(this.solver, grid);
+    ParallelKruskal tiled = new ParallelKruskal();
+    MazeGenerator carver = null;
+    if (!this.generator.equals("tiled") && !this.generator.equals("eller")
+        && !this.generator.equals("kruskal")) {
+      carver = MazeGenerator.forKey(this.generator);
+    }
+    int[] path = new int[grid.cells()];
+    int goal = grid.cells() - 1;
+
+    writer.write("seed,width,height,generator,solver,path,expanded,generateMicros,solveMicros\n");
+    long count = 0;
+    for (long seed = this.fromSeed; seed <= this.toSeed; seed++) {
+      long start = System.nanoTime();
+      if (this.generator.equals("tiled")) {
+        grid.closeAll();
+        tiled.generate(grid, seed);
+      }
+      else if (this.generator.equals("eller")) {
+        grid.closeAll();
+        new EllerGenerator(this.width, new Random(seed)).generate(this.height, grid);
+      }
+      else if (carver != null) {
+        grid.closeAll();
+        carver.generate(grid, new Random(seed));
+      }
+      else {
+        grid.kruskal(new Random(seed));
+      }
+      long generated = System.nanoTime();
+      solve.solve(0, goal);
+      int length = solve.path(goal, path);
+      long solved = System.nanoTime();
+      writer.write(seed + "," + this.width + "," + this.height + "," + this.generator + ","
+          + solve.name() + "," + length + "," + solve.expanded() + ","
+          + (generated - start) / 1000 + "," + (solved - generated) / 1000 + "\n");
+      count++;
+    }
+    writer.flush();
+    return count;
+  }
+
+  // runs the batch described by the arguments and reports its throughput
+  public static void main(String[] args) throws IOException {
+    MazeCli cli;
+    try {
+      cli = new MazeCli(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: java MazeCli [--width W] [--height H] [--seeds FROM TO]"
+          + " [--generator kruskal|tiled|eller|prim|backtracker|wilson]"
+          + " [--solver b|d|a|m|w] [--out FILE]");
+      System.exit(2);
+      return;
+    }
+    Writer writer;
+    if (cli.out == null) {
+      writer = new BufferedWriter(new OutputStreamWriter(System.out));
+    }
+    else {
+      writer = new BufferedWriter(new FileWriter(cli.out));
+    }
+    long start = System.nanoTime();
+    long count = cli.run(writer);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    writer.close();
+    System.err.printf("%d mazes in %.3f s (%.1f mazes/s)%n", count, seconds, count / seconds);
+  }
+
+}
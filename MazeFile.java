@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// represents a maze saved on disk: a 32 byte little-endian header followed
+// by the walls of its MazeGrid, one long per 32 cells.
+//
+//   offset  0  int   MAGIC
+//   offset  4  short VERSION
+//   offset  6  byte  generator, one of the GENERATOR constants
+//   offset  7  byte  unused
+//   offset  8  int   width
+//   offset 12  int   height
+//   offset 16  long  seed the maze was generated from, or SEED_UNKNOWN
+//   offset 24  long  number of wall longs that follow
+//   offset 32  long[] walls
+//
+// Files are read and written through FileChannel mappings, so opening even
+// a multi-gigabyte maze costs O(1) and it can be solved straight from the
+// mapping through a MappedMazeGrid.
+class MazeFile {
+  static final int MAGIC = 0x455a414d;
+  static final short VERSION = 1;
+  static final int HEADER = 32;
+
+  static final int GENERATOR_UNKNOWN = 0;
+  static final int GENERATOR_KRUSKAL = 1;
+  static final int GENERATOR_TILED = 2;
+  static final int GENERATOR_ELLER = 3;
+  static final int GENERATOR_PRIM = 4;
+  static final int GENERATOR_BACKTRACKER = 5;
+  static final int GENERATOR_WILSON = 6;
+
+  // the seed of a maze whose seed is not known, such as one a game saves
+  // after restarting; a maze is never read back with it as its seed
+  static final long SEED_UNKNOWN = Long.MIN_VALUE;
+
+  int width;
+  int height;
+  long seed;
+  int generator;
+  MazeGrid grid;
+
+  MazeFile(MazeGrid grid, long seed, int generator) {
+    this.width = grid.width;
+    this.height = grid.height;
+    this.seed = seed;
+    this.generator = generator;
+    this.grid = grid;
+  }
+
+  // the number of bytes a maze of the given size takes on disk
+  static long size(int width, int height) {
+    return HEADER + 8L * MazeGrid.words(width, height);
+  }
+
+  // writes the header of this maze into the buffer at its position
+  void writeHeader(ByteBuffer buffer) {
+    writeHeader(buffer, this.width, this.height, this.seed, this.generator);
+  }
+
+  // writes the header of a maze with the given size, seed and generator
+  // into the buffer at its position
+  static void writeHeader(ByteBuffer buffer, int width, int height, long seed, int generator) {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC);
+    buffer.putShort(VERSION);
+    buffer.put((byte) generator);
+    buffer.put((byte) 0);
+    buffer.putInt(width);
+    buffer.putInt(height);
+    buffer.putLong(seed);
+    buffer.putLong(MazeGrid.words(width, height));
+  }
+
+  // writes this maze to the given file, replacing what was there
+  void write(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          size(this.width, this.height));
+      this.writeHeader(map);
+      LongBuffer walls = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      int count = MazeGrid.words(this.width, this.height);
+      for (int i = 0; i < count; i++) {
+        walls.put(i, this.grid.word(i));
+      }
+      map.force();
+    }
+  }
+
+  // maps the maze in the given file without reading its walls; with
+  // writable set, knocking down walls in its grid changes the file
+  static MazeFile open(Path path, boolean writable) throws IOException {
+    StandardOpenOption[] options;
+    FileChannel.MapMode mode;
+    if (writable) {
+      options = new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
+      mode = FileChannel.MapMode.READ_WRITE;
+    }
+    else {
+      options = new StandardOpenOption[] {StandardOpenOption.READ};
+      mode = FileChannel.MapMode.READ_ONLY;
+    }
+    try (FileChannel channel = FileChannel.open(path, options)) {
+      return map(channel, 0, mode, path);
+    }
+  }
+
+  // maps every maze in the given file, which holds one or more of them
+  // back to back as DatasetGenerator writes them, each read only
+  static ArrayList<MazeFile> openAll(Path path) throws IOException {
+    ArrayList<MazeFile> mazes = new ArrayList<MazeFile>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long offset = 0;
+      while (offset < channel.size()) {
+        MazeFile maze = map(channel, offset, FileChannel.MapMode.READ_ONLY, path);
+        mazes.add(maze);
+        offset += size(maze.width, maze.height);
+      }
+    }
+    return mazes;
+  }
+
+  // maps the maze whose header starts at the given offset of the channel
+  static MazeFile map(FileChannel channel, long offset, FileChannel.MapMode mode, Path path)
+      throws IOException {
+    if (channel.size() - offset < HEADER) {
+      throw new IllegalArgumentException("Not a maze file: " + path);
+    }
+    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, offset, HEADER);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (header.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a maze file: " + path);
+    }
+    if (header.getShort(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported maze file version " + header.getShort(4));
+    }
+    int width = header.getInt(8);
+    int height = header.getInt(12);
+    if (width < 1 || height < 1 || (long) width * height > MazeGrid.MAX_CELLS
+        || header.getLong(24) != MazeGrid.words(width, height)
+        || channel.size() - offset < size(width, height)) {
+      throw new IllegalArgumentException("Maze file is truncated or corrupt: " + path);
+    }
+    MappedByteBuffer map = channel.map(mode, offset + HEADER, size(width, height) - HEADER);
+    LongBuffer walls = map.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    return new MazeFile(new MappedMazeGrid(width, height, walls), header.getLong(16),
+        header.get(6));
+  }
+
+  // reads the maze in the given file into a MazeGrid on the heap
+  static MazeFile load(Path path) throws IOException {
+    MazeFile mapped = open(path, false);
+    MazeGrid grid = new MazeGrid(mapped.width, mapped.height);
+    for (int i = 0; i < grid.walls.length; i++) {
+      grid.walls[i] = mapped.grid.word(i);
+    }
+    return new MazeFile(grid, mapped.seed, mapped.generator);
+  }
+
+}
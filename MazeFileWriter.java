@@ -0,0 +1,163 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// writes the rows of a streaming generator to a maze file as they arrive,
+// so a maze far taller than memory can still be saved. The walls of each
+// row are packed straight after the previous row's, through a fixed-size
+// buffer; the height in the header is filled in once the last row is in.
+// The newest row is held back until the next one comes, so that a file
+// closed before its last row can still have that row's south walls put
+// up; the maze in it is then whole, though not always connected. A row
+// that would take the maze past MazeGrid.MAX_CELLS is refused, as a file
+// that big could not be opened again.
+class MazeFileWriter implements RowSink, Closeable {
+  static final int BUFFER = 1 << 16;
+
+  int width;
+  long seed;
+  int generator;
+  FileChannel channel;
+  ByteBuffer buffer;
+  // wall bits waiting to fill a long, in its low bits
+  long pending;
+  int bits;
+  int rows;
+  // the walls of the newest row, not yet packed
+  long[] held;
+  boolean holding;
+  boolean finished;
+
+  MazeFileWriter(Path path, int width, long seed, int generator) throws IOException {
+    if (width < 1) {
+      throw new IllegalArgumentException("Width has to be at least 1");
+    }
+    this.width = width;
+    this.seed = seed;
+    this.generator = generator;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.position(MazeFile.HEADER);
+    this.held = new long[(2 * width + 63) >>> 6];
+  }
+
+  // appends row y to the file; the rows have to come in order
+  public void row(int y, long[] walls, boolean last) {
+    if (this.finished || y != this.rows) {
+      throw new IllegalArgumentException("Row " + y + " is out of order");
+    }
+    if ((long) (this.rows + 1) * this.width > MazeGrid.MAX_CELLS) {
+      throw new IllegalArgumentException("Mazes can have at most " + MazeGrid.MAX_CELLS
+          + " cells");
+    }
+    try {
+      if (this.holding) {
+        this.appendHeld();
+      }
+      System.arraycopy(walls, 0, this.held, 0, this.held.length);
+      this.holding = true;
+      this.rows++;
+      if (last) {
+        this.finish();
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // packs the row held back after the rows before it
+  void appendHeld() throws IOException {
+    int remaining = 2 * this.width;
+    for (int i = 0; remaining > 0; i++) {
+      int count = Math.min(64, remaining);
+      long word = this.held[i];
+      if (count < 64) {
+        word &= (1L << count) - 1;
+      }
+      this.append(word, count);
+      remaining -= count;
+    }
+    this.holding = false;
+  }
+
+  // appends the low count bits of word after the bits already written
+  void append(long word, int count) throws IOException {
+    this.pending |= word << this.bits;
+    if (this.bits + count >= 64) {
+      this.put(this.pending);
+      int used = 64 - this.bits;
+      if (used == 64) {
+        this.pending = 0;
+      }
+      else {
+        this.pending = word >>> used;
+      }
+      this.bits = this.bits + count - 64;
+    }
+    else {
+      this.bits += count;
+    }
+  }
+
+  // writes one long of walls, emptying the buffer when it is full
+  void put(long word) throws IOException {
+    if (!this.buffer.hasRemaining()) {
+      this.drain();
+    }
+    this.buffer.putLong(word);
+  }
+
+  // writes out everything in the buffer
+  void drain() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  // writes the row held back with its south walls up, as the bottom row's
+  // always are, the last partial long, with the bits past the last cell up
+  // as MazeGrid keeps them, and then the header for the rows written so far
+  void finish() throws IOException {
+    if (this.finished) {
+      return;
+    }
+    this.finished = true;
+    if (this.holding) {
+      for (int i = 0; i < this.held.length; i++) {
+        this.held[i] |= 0xAAAAAAAAAAAAAAAAL;
+      }
+      this.appendHeld();
+    }
+    if (this.bits > 0) {
+      this.put(this.pending | (-1L << this.bits));
+    }
+    this.drain();
+    ByteBuffer header = ByteBuffer.allocate(MazeFile.HEADER);
+    MazeFile.writeHeader(header, this.width, this.rows, this.seed, this.generator);
+    header.flip();
+    long at = 0;
+    while (header.hasRemaining()) {
+      at += this.channel.write(header, at);
+    }
+  }
+
+  // finishes the file with the rows written so far and closes it
+  public void close() throws IOException {
+    try {
+      this.finish();
+    }
+    finally {
+      this.channel.close();
+    }
+  }
+
+}
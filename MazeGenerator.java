@@ -0,0 +1,37 @@
+import java.util.random.RandomGenerator;
+
+// represents a strategy for carving a maze into a MazeGrid. Every strategy
+// leaves a spanning tree of the grid's cells, so the maze has exactly one
+// path between any two cells, but each gives it a different texture.
+// Generators keep their buffers between mazes of the same size, so one
+// should not be shared by two threads at once.
+interface MazeGenerator {
+  // carves a maze into the grid, which has to have every wall up
+  void generate(MazeGrid grid, RandomGenerator rand);
+
+  // the name of this strategy
+  String name();
+
+  // the MazeFile code of this strategy
+  int fileCode();
+
+  // the generator for the given name: "kruskal", "prim", "backtracker" or
+  // "wilson"
+  static MazeGenerator forKey(String key) {
+    if (key.equals("kruskal")) {
+      return new KruskalGenerator();
+    }
+    else if (key.equals("prim")) {
+      return new PrimGenerator();
+    }
+    else if (key.equals("backtracker")) {
+      return new BacktrackerGenerator();
+    }
+    else if (key.equals("wilson")) {
+      return new WilsonGenerator();
+    }
+    else {
+      throw new IllegalArgumentException("No generator for key " + key);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// represents the walls of a maze as two bits per cell packed into longs:
+// bit 2i is the wall east of cell i and bit 2i + 1 the wall south of it,
+// where cells are numbered in row-major order.
+// An edge between two neighbouring cells is numbered by its wall bit, so
+// edge 2i + EAST joins cell i to the cell on its right and edge
+// 2i + SOUTH joins cell i to the cell below it.
+class MazeGrid implements RowSink {
+  static final int EAST = 0;
+  static final int SOUTH = 1;
+  // the largest number of cells a grid may hold, so that every edge between
+  // two cells still has an int index; beyond that, memory is the only limit
+  static final int MAX_CELLS = Integer.MAX_VALUE / 2;
+
+  int width;
+  int height;
+  long[] walls;
+
+  // makes a grid with every wall up
+  MazeGrid(int width, int height) {
+    this(width, height, true);
+  }
+
+  // makes a grid of the given size, with its walls allocated on the heap
+  // or left for a subclass that keeps them elsewhere
+  MazeGrid(int width, int height, boolean allocate) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Grid has to be at least 1 by 1");
+    }
+    if ((long) width * height > MAX_CELLS) {
+      throw new IllegalArgumentException("Grid can have at most " + MAX_CELLS + " cells");
+    }
+    this.width = width;
+    this.height = height;
+    if (allocate) {
+      this.walls = new long[words(width, height)];
+      this.closeAll();
+    }
+  }
+
+  // the number of longs holding the walls of a grid of the given size
+  static int words(int width, int height) {
+    return (int) (((long) width * height * 2 + 63) >>> 6);
+  }
+
+  // puts every wall back up
+  void closeAll() {
+    Arrays.fill(this.walls, -1L);
+  }
+
+  // the long holding the walls of cells 32i to 32i + 31
+  long word(int i) {
+    return this.walls[i];
+  }
+
+  // the number of cells in this grid
+  int cells() {
+    return this.width * this.height;
+  }
+
+  // the number of edges between neighbouring cells
+  int edgeCount() {
+    return (this.width - 1) * this.height + this.width * (this.height - 1);
+  }
+
+  // the index of the cell in the given column and row
+  int index(int col, int row) {
+    return row * this.width + col;
+  }
+
+  // the column of the given cell
+  int col(int cell) {
+    return cell % this.width;
+  }
+
+  // the row of the given cell
+  int row(int cell) {
+    return cell / this.width;
+  }
+
+  // determines if the wall with the given bit is up
+  boolean hasWall(int edge) {
+    return (this.walls[edge >>> 6] & (1L << edge)) != 0;
+  }
+
+  // determines if the wall east of the given cell is up
+  boolean hasEastWall(int cell) {
+    return this.hasWall(2 * cell + EAST);
+  }
+
+  // determines if the wall south of the given cell is up
+  boolean hasSouthWall(int cell) {
+    return this.hasWall(2 * cell + SOUTH);
+  }
+
+  // knocks down the wall with the given bit
+  void openEdge(int edge) {
+    this.walls[edge >>> 6] &= ~(1L << edge);
+  }
+
+  // puts the wall with the given bit back up
+  void closeEdge(int edge) {
+    this.walls[edge >>> 6] |= 1L << edge;
+  }
+
+  // determines if the given bit is a wall between two cells of the grid
+  // rather than one on the outer border
+  boolean isEdge(int edge) {
+    int cell = edge >>> 1;
+    if (cell >= this.cells()) {
+      return false;
+    }
+    if ((edge & 1) == EAST) {
+      return this.col(cell) < this.width - 1;
+    }
+    else {
+      return this.row(cell) < this.height - 1;
+    }
+  }
+
+  // the cell on the top or left side of the given edge
+  int edgeFrom(int edge) {
+    return edge >>> 1;
+  }
+
+  // the cell on the bottom or right side of the given edge
+  int edgeTo(int edge) {
+    if ((edge & 1) == EAST) {
+      return (edge >>> 1) + 1;
+    }
+    else {
+      return (edge >>> 1) + this.width;
+    }
+  }
+
+  // the edge between two neighbouring cells
+  int edgeBetween(int a, int b) {
+    int from = Math.min(a, b);
+    int to = Math.max(a, b);
+    if (to == from + 1 && this.col(from) < this.width - 1) {
+      return 2 * from + EAST;
+    }
+    if (to == from + this.width) {
+      return 2 * from + SOUTH;
+    }
+    throw new IllegalArgumentException("Cells " + a + " and " + b + " are not neighbours");
+  }
+
+  // determines if one can walk directly between two neighbouring cells
+  boolean isOpen(int a, int b) {
+    return !this.hasWall(this.edgeBetween(a, b));
+  }
+
+  // writes the cells reachable in one step from the given cell into out,
+  // in east, south, west, north order, and returns how many there are
+  int neighbours(int cell, int[] out) {
+    int count = 0;
+    int col = this.col(cell);
+    if (col < this.width - 1 && !this.hasWall(2 * cell + EAST)) {
+      out[count++] = cell + 1;
+    }
+    if (cell + this.width < this.cells() && !this.hasWall(2 * cell + SOUTH)) {
+      out[count++] = cell + this.width;
+    }
+    if (col > 0 && !this.hasWall(2 * cell - 2 + EAST)) {
+      out[count++] = cell - 1;
+    }
+    if (cell >= this.width && !this.hasWall(2 * (cell - this.width) + SOUTH)) {
+      out[count++] = cell - this.width;
+    }
+    return count;
+  }
+
+  // writes every cell next to the given cell into out, walls or not, in
+  // east, south, west, north order, and returns how many there are
+  int adjacent(int cell, int[] out) {
+    int count = 0;
+    int col = this.col(cell);
+    if (col < this.width - 1) {
+      out[count++] = cell + 1;
+    }
+    if (cell + this.width < this.cells()) {
+      out[count++] = cell + this.width;
+    }
+    if (col > 0) {
+      out[count++] = cell - 1;
+    }
+    if (cell >= this.width) {
+      out[count++] = cell - this.width;
+    }
+    return count;
+  }
+
+  // the number of cells reachable in one step from the given cell
+  int degree(int cell) {
+    int count = 0;
+    int col = this.col(cell);
+    if (col < this.width - 1 && !this.hasWall(2 * cell + EAST)) {
+      count++;
+    }
+    if (cell + this.width < this.cells() && !this.hasWall(2 * cell + SOUTH)) {
+      count++;
+    }
+    if (col > 0 && !this.hasWall(2 * cell - 2 + EAST)) {
+      count++;
+    }
+    if (cell >= this.width && !this.hasWall(2 * (cell - this.width) + SOUTH)) {
+      count++;
+    }
+    return count;
+  }
+
+  // every edge of the grid, in the order Maze.allEdges creates them:
+  // row by row, the edge below each cell and then the edge to its right
+  int[] edgeIds() {
+    int[] ids = new int[this.edgeCount()];
+    int count = 0;
+    for (int cell = 0; cell < this.cells(); cell++) {
+      if (this.row(cell) < this.height - 1) {
+        ids[count++] = 2 * cell + SOUTH;
+      }
+      if (this.col(cell) < this.width - 1) {
+        ids[count++] = 2 * cell + EAST;
+      }
+    }
+    return ids;
+  }
+
+  // carves a maze into this grid with Kruskal's algorithm over edges drawn
+  // and sorted exactly as Maze does, so the same seed gives the same maze
+  void kruskal(RandomGenerator rand) {
+    this.closeAll();
+    this.kruskal(EdgeOrder.byWeight(this, rand).ids, new DisjointSet(this.cells()));
+  }
+
+  // a copy of this grid as it is now that never changes, which solvers on
+  // other threads can read while this grid goes on changing
+  MazeSnapshot snapshot() {
+    return new MazeSnapshot(this);
+  }
+
+  // knocks down the walls missing from row y, so that a streaming
+  // generator can fill this grid
+  public void row(int y, long[] walls, boolean last) {
+    for (int x = 0; x < this.width; x++) {
+      int cell = y * this.width + x;
+      if ((walls[(2 * x) >>> 6] & (1L << (2 * x))) == 0) {
+        this.openEdge(2 * cell + EAST);
+      }
+      if ((walls[(2 * x + 1) >>> 6] & (1L << (2 * x + 1))) == 0) {
+        this.openEdge(2 * cell + SOUTH);
+      }
+    }
+  }
+
+  // knocks down the walls Kruskal's algorithm keeps when visiting the
+  // edges in the given order, and returns how many it knocked down
+  int kruskal(int[] order, DisjointSet sets) {
+    int opened = 0;
+    for (int edge : order) {
+      if (sets.union(this.edgeFrom(edge), this.edgeTo(edge))) {
+        this.openEdge(edge);
+        opened++;
+        if (sets.sets == 1) {
+          break;
+        }
+      }
+    }
+    return opened;
+  }
+
+}
@@ -0,0 +1,203 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+// records where the time of the maze engine goes: generation, solving and
+// drawing. Every hot path asks start() for a timestamp and hands it back
+// when it is done; while recording is off start() returns OFF and nothing
+// else is done, so the cost is one volatile read per call. Counters are
+// atomic because mazes are also generated on the pregenerating thread and
+// read from JMX.
+class MazeMetrics implements MazeMetricsMBean {
+  // the timestamp start() returns while recording is off
+  static final long OFF = Long.MIN_VALUE;
+  static final String NAME = "kruskalmaze:type=MazeMetrics";
+  // the metrics of every maze, recording from the start if the system
+  // property maze.metrics is true
+  static final MazeMetrics SHARED = new MazeMetrics(Boolean.getBoolean("maze.metrics"));
+
+  volatile boolean enabled;
+  boolean registered;
+  AtomicLong generations;
+  AtomicLong lastGenerateNanos;
+  AtomicLong generateNanos;
+  AtomicLong unions;
+  LongAccumulator maxFindDepth;
+  AtomicLong solves;
+  AtomicLong expanded;
+  LongAccumulator highWater;
+  TimeHistogram scenes;
+  TimeHistogram ticks;
+
+  MazeMetrics(boolean enabled) {
+    this.enabled = enabled;
+    this.generations = new AtomicLong();
+    this.lastGenerateNanos = new AtomicLong();
+    this.generateNanos = new AtomicLong();
+    this.unions = new AtomicLong();
+    this.maxFindDepth = new LongAccumulator(Math::max, 0);
+    this.solves = new AtomicLong();
+    this.expanded = new AtomicLong();
+    this.highWater = new LongAccumulator(Math::max, 0);
+    this.scenes = new TimeHistogram();
+    this.ticks = new TimeHistogram();
+  }
+
+  // the time now, or OFF if nothing is being recorded
+  long start() {
+    if (this.enabled) {
+      return System.nanoTime();
+    }
+    else {
+      return OFF;
+    }
+  }
+
+  // records a maze generated since start with the given number of unions,
+  // whose finds took at most the given number of steps
+  void generated(long start, long unions, int findDepth) {
+    if (start != OFF) {
+      long nanos = System.nanoTime() - start;
+      this.generations.incrementAndGet();
+      this.lastGenerateNanos.set(nanos);
+      this.generateNanos.addAndGet(nanos);
+      this.unions.addAndGet(unions);
+      this.maxFindDepth.accumulate(findDepth);
+    }
+  }
+
+  // records the last solve of the given solver
+  void solved(Solver solver) {
+    if (this.enabled) {
+      this.solves.incrementAndGet();
+      this.expanded.addAndGet(solver.expanded());
+      this.highWater.accumulate(solver.highWater());
+    }
+  }
+
+  // records a scene drawn since start
+  void scene(long start) {
+    if (start != OFF) {
+      this.scenes.add(System.nanoTime() - start);
+    }
+  }
+
+  // records a tick that began at start
+  void tick(long start) {
+    if (start != OFF) {
+      this.ticks.add(System.nanoTime() - start);
+    }
+  }
+
+  // makes these metrics visible through the platform MBean server, once
+  synchronized void register() {
+    if (this.registered) {
+      return;
+    }
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new StandardMBean(this, MazeMetricsMBean.class), name);
+      }
+      this.registered = true;
+    }
+    catch (JMException e) {
+      throw new IllegalStateException("Could not register " + NAME, e);
+    }
+  }
+
+  // the lines the game shows over the board
+  String[] overlay() {
+    return new String[] {
+        String.format("generate %.1f ms, %d unions, find depth %d",
+            this.getLastGenerateMillis(), this.unions.get(), this.maxFindDepth.get()),
+        String.format("%d expanded, queue at most %d",
+            this.expanded.get(), this.highWater.get()),
+        String.format("scene %.0f us (p99 %.0f), tick %.0f us (p99 %.0f)",
+            this.getSceneMeanMicros(), this.getSceneP99Micros(),
+            this.getTickMeanMicros(), this.getTickP99Micros())};
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getGenerations() {
+    return this.generations.get();
+  }
+
+  public double getLastGenerateMillis() {
+    return this.lastGenerateNanos.get() / 1e6;
+  }
+
+  public double getGenerateMillis() {
+    return this.generateNanos.get() / 1e6;
+  }
+
+  public long getUnions() {
+    return this.unions.get();
+  }
+
+  public long getMaxFindDepth() {
+    return this.maxFindDepth.get();
+  }
+
+  public long getSolves() {
+    return this.solves.get();
+  }
+
+  public long getCellsExpanded() {
+    return this.expanded.get();
+  }
+
+  public long getQueueHighWater() {
+    return this.highWater.get();
+  }
+
+  public long getScenes() {
+    return this.scenes.count();
+  }
+
+  public double getSceneMeanMicros() {
+    return this.scenes.mean() / 1e3;
+  }
+
+  public double getSceneP99Micros() {
+    return this.scenes.percentile(0.99) / 1e3;
+  }
+
+  public long getTicks() {
+    return this.ticks.count();
+  }
+
+  public double getTickMeanMicros() {
+    return this.ticks.mean() / 1e3;
+  }
+
+  public double getTickP99Micros() {
+    return this.ticks.percentile(0.99) / 1e3;
+  }
+
+  public void reset() {
+    this.generations.set(0);
+    this.lastGenerateNanos.set(0);
+    this.generateNanos.set(0);
+    this.unions.set(0);
+    this.maxFindDepth.reset();
+    this.solves.set(0);
+    this.expanded.set(0);
+    this.highWater.reset();
+    this.scenes.reset();
+    this.ticks.reset();
+  }
+
+}
@@ -0,0 +1,54 @@
+// the metrics of the maze engine as JMX shows them, under the name
+// kruskalmaze:type=MazeMetrics; times are in milliseconds or microseconds
+public interface MazeMetricsMBean {
+  // whether the engine is recording metrics
+  boolean isEnabled();
+
+  // starts or stops recording metrics
+  void setEnabled(boolean enabled);
+
+  // the number of mazes generated, by any generator
+  long getGenerations();
+
+  // the time generating the last maze took
+  double getLastGenerateMillis();
+
+  // the time generating every maze took
+  double getGenerateMillis();
+
+  // the number of unions made generating every maze
+  long getUnions();
+
+  // the most steps a find took to reach its root
+  long getMaxFindDepth();
+
+  // the number of mazes solved
+  long getSolves();
+
+  // the number of cells every solve expanded
+  long getCellsExpanded();
+
+  // the most cells a solve held waiting to be expanded at once
+  long getQueueHighWater();
+
+  // the number of scenes drawn
+  long getScenes();
+
+  // the mean time drawing a scene took
+  double getSceneMeanMicros();
+
+  // the time 99 percent of scenes were drawn within
+  double getSceneP99Micros();
+
+  // the number of ticks
+  long getTicks();
+
+  // the mean time a tick took
+  double getTickMeanMicros();
+
+  // the time 99 percent of ticks took at most
+  double getTickP99Micros();
+
+  // forgets everything recorded so far
+  void reset();
+}
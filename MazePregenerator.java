@@ -0,0 +1,115 @@
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// builds the maze the next restart will show while the current one is
+// being played, so that restarting only has to swap it in. Only the worker
+// thread uses the generator, so it is not shared with the game. At most one
+// maze is built ahead at a time, each drawn from the same Random in turn,
+// so restarts show exactly the mazes building them one by one would, a
+// discarded maze still taking its turn. When restarts come faster than
+// mazes can be built, a restart waits for the maze already under way
+// rather than starting another.
+class MazePregenerator {
+  // one low priority daemon thread shared by every game, which never keeps
+  // the program alive and yields to the thread drawing the world
+  static final ExecutorService WORKER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "maze-pregenerator");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  int width;
+  int height;
+  Random rand;
+  MazeGenerator generator;
+  ExecutorService worker;
+  Future<Maze> next;
+  // how many restarts found their maze ready, and how many had to wait
+  int ready;
+  int waited;
+
+  MazePregenerator(int width, int height, Random rand, MazeGenerator generator,
+      ExecutorService worker) {
+    this.width = width;
+    this.height = height;
+    this.rand = rand;
+    this.generator = generator;
+    this.worker = worker;
+  }
+
+  // starts building the next maze unless one is already under way
+  void prepare() {
+    if (this.next == null) {
+      this.next = this.worker.submit(this::build);
+    }
+  }
+
+  // builds a maze with the generator; Kruskal's algorithm builds it exactly
+  // as Maze always has, with the weights of its edges
+  Maze build() {
+    if (this.generator == null || this.generator instanceof KruskalGenerator) {
+      return new Maze(this.width, this.height, this.rand);
+    }
+    else {
+      return new Maze(this.width, this.height, this.rand, this.generator);
+    }
+  }
+
+  // forgets the maze under way, if any, which the next take builds again.
+  // It is waited for rather than cancelled: a cancelled build may already
+  // be drawing from the Random, which the next one would then share
+  void discard() {
+    if (this.next == null) {
+      return;
+    }
+    Future<Maze> forgotten = this.next;
+    this.next = null;
+    try {
+      forgotten.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      // the maze is forgotten either way
+    }
+  }
+
+  // determines if the next maze is built and waiting
+  boolean isReady() {
+    return this.next != null && this.next.isDone();
+  }
+
+  // the next maze, waiting for it if it is not built yet; the one after it
+  // is started straight away
+  Maze take() {
+    this.prepare();
+    if (this.next.isDone()) {
+      this.ready++;
+    }
+    else {
+      this.waited++;
+    }
+    Maze maze;
+    try {
+      maze = this.next.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while building the next maze", e);
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Could not build the next maze", e.getCause());
+    }
+    finally {
+      this.next = null;
+    }
+    this.prepare();
+    return maze;
+  }
+
+}
@@ -0,0 +1,381 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// draws a maze and its solution straight into the int[] pixels of
+// BufferedImages, or into packed PNG scanlines, without javalib: scale
+// pixels per cell, with each cell's east and south walls along its last
+// column and row as BoardRenderer draws them, and the colours of Cell:
+// GREEN start, PINK goal and path, BLUE searched, GRAY otherwise. The
+// image is drawn in bands of rows that can be drawn in parallel, and
+// written to PNG a band at a time, so even a maze too large to hold as one
+// image can be exported. PNGs hold four bits a pixel, indices into the
+// five colours, which halves what has to be compressed compared with a
+// byte a pixel.
+//
+//   java MazeRaster MAZE_FILE PNG_FILE [--scale S] [--solver b|d|a|m|w]
+class MazeRaster {
+  // the colours of the cells, by the codes of BoardRenderer.PALETTE, and
+  // then the walls
+  static final int WALL = BoardRenderer.PALETTE.length;
+  static final int[] RGB = {Color.GRAY.getRGB(), Color.BLUE.getRGB(), Color.PINK.getRGB(),
+      Color.GREEN.getRGB(), Color.BLACK.getRGB()};
+  // the most pixels one band may hold
+  static final int BAND_PIXELS = 1 << 22;
+
+  MazeGrid grid;
+  int scale;
+  byte[] codes;
+  ForkJoinPool pool;
+  // rows of cells per band
+  int bandRows;
+
+  MazeRaster(MazeGrid grid, int scale, byte[] codes, ForkJoinPool pool) {
+    if (scale < 2) {
+      throw new IllegalArgumentException("Cells have to be at least 2 pixels");
+    }
+    if ((long) grid.width * scale > Integer.MAX_VALUE / scale
+        || (long) grid.height * scale > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image would be too large");
+    }
+    if (codes.length != grid.cells()) {
+      throw new IllegalArgumentException("Every cell needs exactly one colour");
+    }
+    this.grid = grid;
+    this.scale = scale;
+    this.codes = codes;
+    this.pool = pool;
+    this.bandRows = (int) Math.max(1,
+        Math.min(grid.height, BAND_PIXELS / ((long) grid.width * scale * scale)));
+  }
+
+  // draws the grid with only its start and goal coloured
+  MazeRaster(MazeGrid grid, int scale) {
+    this(grid, scale, new byte[grid.cells()], ForkJoinPool.commonPool());
+    this.codes[0] = 3;
+    this.codes[grid.cells() - 1] = 2;
+  }
+
+  // the width of the image in pixels
+  int width() {
+    return this.grid.width * this.scale;
+  }
+
+  // the height of the image in pixels
+  int height() {
+    return this.grid.height * this.scale;
+  }
+
+  // colours the cells a solve expanded, and then the path it found from
+  // the first cell to the last, as the game shows them when it is done
+  void solution(Solver solver) {
+    int goal = this.grid.cells() - 1;
+    if (!solver.solve(0, goal)) {
+      return;
+    }
+    int[] order = solver.order();
+    for (int i = 0; i < solver.expanded(); i++) {
+      this.codes[order[i]] = (byte) Math.max(this.codes[order[i]], 1);
+    }
+    int[] path = new int[this.grid.cells()];
+    int length = solver.path(goal, path);
+    for (int i = 0; i < length; i++) {
+      this.codes[path[i]] = 2;
+    }
+    this.codes[0] = 3;
+  }
+
+  // a BufferedImage of the given rows of cells
+  BufferedImage band(int fromRow, int rows) {
+    BufferedImage image = new BufferedImage(this.width(), rows * this.scale,
+        BufferedImage.TYPE_INT_RGB);
+    this.paint(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, fromRow,
+        rows);
+    return image;
+  }
+
+  // draws the given rows of cells into pixels, which are width() wide,
+  // starting at the given offset
+  void paint(int[] pixels, int offset, int fromRow, int rows) {
+    int s = this.scale;
+    int stride = this.width();
+    for (int row = fromRow; row < fromRow + rows; row++) {
+      int top = offset + (row - fromRow) * s * stride;
+      for (int col = 0; col < this.grid.width; col++) {
+        int cell = this.grid.index(col, row);
+        int fill = RGB[this.codes[cell]];
+        boolean east = col < this.grid.width - 1 && this.grid.hasEastWall(cell);
+        boolean south = row < this.grid.height - 1 && this.grid.hasSouthWall(cell);
+        int at = top + col * s;
+        for (int y = 0; y < s; y++) {
+          int line = at + y * stride;
+          int color = fill;
+          if (south && y == s - 1) {
+            color = RGB[WALL];
+          }
+          for (int x = 0; x < s - 1; x++) {
+            pixels[line + x] = color;
+          }
+          if (east) {
+            pixels[line + s - 1] = RGB[WALL];
+          }
+          else {
+            pixels[line + s - 1] = color;
+          }
+        }
+      }
+    }
+  }
+
+  // the whole image at once, drawing its bands in parallel straight into
+  // their places in its pixels
+  BufferedImage render() {
+    if ((long) this.width() * this.height() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image would be too large");
+    }
+    BufferedImage image = new BufferedImage(this.width(), this.height(),
+        BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    int bandPixels = this.bandRows * this.scale * this.width();
+    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+    for (int row = 0; row < this.grid.height; row += this.bandRows) {
+      int from = row;
+      int rows = Math.min(this.bandRows, this.grid.height - row);
+      int offset = (from / this.bandRows) * bandPixels;
+      tasks.add(this.pool.submit(() -> this.paint(pixels, offset, from, rows)));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+    return image;
+  }
+
+  // the bytes of one PNG scanline: the filter byte, then two pixels a byte
+  int lineBytes() {
+    return 1 + (this.width() + 1) / 2;
+  }
+
+  // writes the PNG scanlines of the given rows of cells into lines, one
+  // after the other, as palette indices packed four bits a pixel; they are
+  // drawn exactly as paint draws the pixels
+  void paintLines(byte[] lines, int fromRow, int rows) {
+    int s = this.scale;
+    int stride = this.lineBytes();
+    Arrays.fill(lines, 0, rows * s * stride, (byte) 0);
+    for (int row = fromRow; row < fromRow + rows; row++) {
+      for (int col = 0; col < this.grid.width; col++) {
+        int cell = this.grid.index(col, row);
+        int fill = this.codes[cell];
+        boolean east = col < this.grid.width - 1 && this.grid.hasEastWall(cell);
+        boolean south = row < this.grid.height - 1 && this.grid.hasSouthWall(cell);
+        for (int y = 0; y < s; y++) {
+          int line = ((row - fromRow) * s + y) * stride + 1;
+          int index = fill;
+          if (south && y == s - 1) {
+            index = WALL;
+          }
+          int px = col * s;
+          for (int x = 0; x < s - 1; x++) {
+            lines[line + (px >> 1)] |= (byte) (index << (((px + 1) & 1) << 2));
+            px++;
+          }
+          if (east) {
+            index = WALL;
+          }
+          lines[line + (px >> 1)] |= (byte) (index << (((px + 1) & 1) << 2));
+        }
+      }
+    }
+  }
+
+  // writes the image as a 4 bit palette PNG, drawing the bands of
+  // scanlines ahead in parallel and compressing them in order, so only a
+  // few bands are ever held at once
+  void writePng(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+
+    byte[] header = new byte[13];
+    putInt(header, 0, this.width());
+    putInt(header, 4, this.height());
+    header[8] = 4;
+    header[9] = 3;
+    chunk(data, "IHDR", header, header.length);
+
+    byte[] palette = new byte[3 * RGB.length];
+    for (int i = 0; i < RGB.length; i++) {
+      palette[3 * i] = (byte) (RGB[i] >> 16);
+      palette[3 * i + 1] = (byte) (RGB[i] >> 8);
+      palette[3 * i + 2] = (byte) RGB[i];
+    }
+    chunk(data, "PLTE", palette, palette.length);
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    DeflaterOutputStream idat = new DeflaterOutputStream(new ChunkStream(data, "IDAT"),
+        deflater, 1 << 16);
+    int ahead = Math.max(2, this.pool.getParallelism());
+    int bandBytes = this.bandRows * this.scale * this.lineBytes();
+    ArrayList<ForkJoinTask<byte[]>> bands = new ArrayList<ForkJoinTask<byte[]>>();
+    ArrayList<byte[]> free = new ArrayList<byte[]>();
+    int next = 0;
+    for (int row = 0; row < this.grid.height; row += this.bandRows) {
+      while (bands.size() < ahead && next < this.grid.height) {
+        int from = next;
+        int rows = Math.min(this.bandRows, this.grid.height - next);
+        byte[] lines;
+        if (free.isEmpty()) {
+          lines = new byte[bandBytes];
+        }
+        else {
+          lines = free.remove(free.size() - 1);
+        }
+        bands.add(this.pool.submit(() -> {
+          this.paintLines(lines, from, rows);
+          return lines;
+        }));
+        next += rows;
+      }
+      byte[] lines = bands.remove(0).join();
+      int rows = Math.min(this.bandRows, this.grid.height - row);
+      idat.write(lines, 0, rows * this.scale * this.lineBytes());
+      free.add(lines);
+    }
+    idat.finish();
+    idat.flush();
+    deflater.end();
+    chunk(data, "IEND", new byte[0], 0);
+    data.flush();
+  }
+
+  // writes the image to the given PNG file
+  void writePng(Path path) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path.toFile()),
+        1 << 16)) {
+      this.writePng(out);
+    }
+  }
+
+  // writes the value big-endian into bytes at the given offset
+  static void putInt(byte[] bytes, int at, int value) {
+    bytes[at] = (byte) (value >>> 24);
+    bytes[at + 1] = (byte) (value >>> 16);
+    bytes[at + 2] = (byte) (value >>> 8);
+    bytes[at + 3] = (byte) value;
+  }
+
+  // writes one PNG chunk of the given type holding the first length bytes
+  static void chunk(DataOutputStream out, String type, byte[] bytes, int length)
+      throws IOException {
+    byte[] name = type.getBytes("US-ASCII");
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(bytes, 0, length);
+    out.writeInt(length);
+    out.write(name);
+    out.write(bytes, 0, length);
+    out.writeInt((int) crc.getValue());
+  }
+
+  // exports the maze in a file, solved with the given solver, to a PNG
+  public static void main(String[] args) throws IOException {
+    int scale = 2;
+    String solver = null;
+    try {
+      if (args.length < 2) {
+        throw new IllegalArgumentException("Missing maze or PNG file");
+      }
+      for (int i = 2; i < args.length; i += 2) {
+        if (i + 1 == args.length) {
+          throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        if (args[i].equals("--scale")) {
+          scale = Integer.parseInt(args[i + 1]);
+        }
+        else if (args[i].equals("--solver")) {
+          solver = args[i + 1];
+        }
+        else {
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: java MazeRaster MAZE_FILE PNG_FILE [--scale S]"
+          + " [--solver b|d|a|m|w]");
+      System.exit(2);
+      return;
+    }
+    long start = System.nanoTime();
+    MazeFile file = MazeFile.open(Paths.get(args[0]), false);
+    MazeRaster raster = new MazeRaster(file.grid, scale);
+    if (solver != null) {
+      raster.solution(Solver.forKey(solver, file.grid));
+    }
+    long solved = System.nanoTime();
+    raster.writePng(Paths.get(args[1]));
+    long written = System.nanoTime();
+    System.err.printf("%d x %d pixels: solved in %.2f s, written in %.2f s%n",
+        raster.width(), raster.height(), (solved - start) / 1e9, (written - solved) / 1e9);
+  }
+
+}
+
+// writes everything written to it as PNG chunks of one type, of up to 64 KB
+class ChunkStream extends OutputStream {
+  DataOutputStream out;
+  String type;
+  byte[] buffer;
+  int count;
+
+  ChunkStream(DataOutputStream out, String type) {
+    this.out = out;
+    this.type = type;
+    this.buffer = new byte[1 << 16];
+  }
+
+  // buffers one byte
+  public void write(int b) throws IOException {
+    if (this.count == this.buffer.length) {
+      this.flush();
+    }
+    this.buffer[this.count++] = (byte) b;
+  }
+
+  // buffers the given bytes, writing a chunk whenever the buffer is full
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (this.count == this.buffer.length) {
+        this.flush();
+      }
+      int n = Math.min(length, this.buffer.length - this.count);
+      System.arraycopy(bytes, offset, this.buffer, this.count, n);
+      this.count += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  // writes what is buffered as one chunk
+  public void flush() throws IOException {
+    if (this.count > 0) {
+      MazeRaster.chunk(this.out, this.type, this.buffer, this.count);
+      this.count = 0;
+    }
+  }
+
+}
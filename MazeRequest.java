@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+// represents one parsed request to a MazeService
+class MazeRequest {
+  int width;
+  int height;
+  long seed;
+  String generator;
+  String solver;
+
+  MazeRequest(int width, int height, long seed, String generator, String solver) {
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    this.generator = generator;
+    this.solver = solver;
+  }
+
+  // the request on the given line, which has to ask for a maze of at most
+  // the given number of cells
+  static MazeRequest parse(String line, long maxCells) {
+    String[] words = line.split(" +");
+    if ((words.length != 5 && words.length != 6) || !words[0].equals("MAZE")) {
+      throw new IllegalArgumentException("Expected MAZE WIDTH HEIGHT SEED GENERATOR [SOLVER]");
+    }
+    MazeRequest request;
+    try {
+      request = new MazeRequest(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+          Long.parseLong(words[3]), words[4], null);
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Width, height and seed have to be numbers");
+    }
+    if (words.length == 6) {
+      request.solver = words[5];
+      Solver.forKey(request.solver, new MazeGrid(1, 1));
+    }
+    if (request.width < 2 || request.height < 2) {
+      throw new IllegalArgumentException("Mazes have to be at least 2 by 2");
+    }
+    if ((long) request.width * request.height > maxCells) {
+      throw new IllegalArgumentException("Mazes can have at most " + maxCells + " cells");
+    }
+    if (!request.generator.equals("tiled") && !request.generator.equals("eller")) {
+      MazeGenerator.forKey(request.generator);
+    }
+    return request;
+  }
+
+  // what identifies the answer to this request
+  String key() {
+    return this.width + " " + this.height + " " + this.seed + " " + this.generator + " "
+        + this.solver;
+  }
+
+  // builds the maze, and its path if a solver was asked for, and encodes
+  // them into a read-only direct buffer
+  ByteBuffer encode() {
+    MazeGrid grid = new MazeGrid(this.width, this.height);
+    int code;
+    if (this.generator.equals("tiled")) {
+      new ParallelKruskal().generate(grid, this.seed);
+      code = MazeFile.GENERATOR_TILED;
+    }
+    else if (this.generator.equals("eller")) {
+      new EllerGenerator(this.width, new Random(this.seed)).generate(this.height, grid);
+      code = MazeFile.GENERATOR_ELLER;
+    }
+    else {
+      MazeGenerator carver = MazeGenerator.forKey(this.generator);
+      carver.generate(grid, new Random(this.seed));
+      code = carver.fileCode();
+    }
+    int[] path = new int[0];
+    int length = 0;
+    if (this.solver != null) {
+      Solver solve = Solver.forKey(this.solver, grid);
+      path = new int[grid.cells()];
+      if (solve.solve(0, grid.cells() - 1)) {
+        length = solve.path(grid.cells() - 1, path);
+      }
+    }
+    long size = MazeFile.size(this.width, this.height);
+    if (this.solver != null) {
+      size += 4 + 4L * length;
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Maze is too large to serve");
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    MazeFile.writeHeader(buffer, this.width, this.height, this.seed, code);
+    buffer.asLongBuffer().put(grid.walls);
+    buffer.position(buffer.position() + 8 * grid.walls.length);
+    if (this.solver != null) {
+      buffer.putInt(length);
+      buffer.asIntBuffer().put(path, 0, length);
+    }
+    buffer.clear();
+    return buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+}
@@ -0,0 +1,334 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// serves mazes over a loopback or Unix domain socket, so tools that want
+// the same mazes again and again share one generator and one cache
+// instead of each building them. A client sends one line per maze,
+//
+//   MAZE WIDTH HEIGHT SEED GENERATOR [SOLVER]
+//
+// with GENERATOR one of kruskal, tiled, eller, prim, backtracker or wilson
+// and SOLVER one of b, d, a, m or w, built exactly as MazeCli builds them.
+// Each line is answered with "OK BYTES\n" followed by the maze as a
+// MazeFile, header and walls, and then, if a solver was named, the length
+// of the path from the last cell back to the first and its cells, as
+// little-endian ints; or with "ERR MESSAGE\n".
+//
+// Answers are kept, encoded, in direct ByteBuffers in a cache bounded by
+// their total size that forgets the least recently used first, and every
+// answer is written from a duplicate of the cached buffer, so repeats cost
+// no generation and no copying. Identical requests that arrive while the
+// maze is being built wait for that one build rather than starting their
+// own. Each connection is served on a thread of its own.
+//
+//   java MazeService [--port P | --unix PATH] [--cache BYTES] [--max-cells N]
+class MazeService implements Closeable {
+  // the longest request line read
+  static final int MAX_LINE = 256;
+
+  ServerSocketChannel server;
+  ExecutorService connections;
+  long capacity;
+  long maxCells;
+  // the encoded answers, least recently used first; guarded by itself
+  LinkedHashMap<String, ByteBuffer> cache;
+  long cachedBytes;
+  // the answers being built, by request
+  ConcurrentHashMap<String, CompletableFuture<ByteBuffer>> pending;
+  // answers found in the cache, built, and taken from a build under way
+  AtomicLong hits;
+  AtomicLong misses;
+  AtomicLong coalesced;
+
+  MazeService(long capacity, long maxCells) {
+    if (capacity < 0 || maxCells < 4) {
+      throw new IllegalArgumentException("Cache and maze limits have to be positive");
+    }
+    this.capacity = capacity;
+    this.maxCells = Math.min(maxCells, MazeGrid.MAX_CELLS);
+    this.cache = new LinkedHashMap<String, ByteBuffer>(16, 0.75f, true);
+    this.pending = new ConcurrentHashMap<String, CompletableFuture<ByteBuffer>>();
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.coalesced = new AtomicLong();
+    this.connections = Executors.newCachedThreadPool(task -> {
+      Thread thread = new Thread(task, "maze-service");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // starts accepting connections at the given address, on its own thread,
+  // and returns the address it is bound to
+  SocketAddress listen(SocketAddress address) throws IOException {
+    if (address instanceof UnixDomainSocketAddress) {
+      this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    }
+    else {
+      this.server = ServerSocketChannel.open();
+    }
+    this.server.bind(address);
+    this.connections.execute(this::accept);
+    return this.server.getLocalAddress();
+  }
+
+  // the loopback address with the given port, 0 for any free one
+  static SocketAddress loopback(int port) {
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+  }
+
+  // hands every connection to a thread of its own until closed
+  void accept() {
+    try {
+      while (this.server.isOpen()) {
+        SocketChannel channel = this.server.accept();
+        this.connections.execute(() -> this.serve(channel));
+      }
+    }
+    catch (AsynchronousCloseException e) {
+      // closed while waiting for a connection
+    }
+    catch (IOException e) {
+      System.err.println("MazeService stopped accepting: " + e.getMessage());
+    }
+  }
+
+  // answers every line the client sends until it hangs up
+  void serve(SocketChannel channel) {
+    try (SocketChannel open = channel) {
+      ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+      while (open.read(in) >= 0) {
+        in.flip();
+        int start = in.position();
+        for (int i = in.position(); i < in.limit(); i++) {
+          if (in.get(i) == '\n') {
+            String line = new String(in.array(), start, i - start, StandardCharsets.US_ASCII);
+            this.answer(open, line.trim());
+            start = i + 1;
+          }
+        }
+        in.position(start);
+        in.compact();
+        if (!in.hasRemaining()) {
+          this.write(open, "ERR Request is longer than " + MAX_LINE + " bytes\n", null);
+          return;
+        }
+      }
+    }
+    catch (IOException e) {
+      // the client went away
+    }
+  }
+
+  // answers one request line on the channel
+  void answer(ByteChannel channel, String line) throws IOException {
+    ByteBuffer body;
+    try {
+      body = this.get(MazeRequest.parse(line, this.maxCells));
+    }
+    catch (RuntimeException e) {
+      // a bad request or a failed build ends this answer, not the connection
+      String message = e.getMessage() == null ? e.toString() : e.getMessage();
+      this.write(channel, "ERR " + message + "\n", null);
+      return;
+    }
+    this.write(channel, "OK " + body.remaining() + "\n", body);
+  }
+
+  // writes the header line and then the body, if any, in gathering writes
+  void write(ByteChannel channel, String header, ByteBuffer body) throws IOException {
+    ByteBuffer head = ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII));
+    while (head.hasRemaining()) {
+      channel.write(head);
+    }
+    while (body != null && body.hasRemaining()) {
+      channel.write(body);
+    }
+  }
+
+  // the encoded answer to the request, ready to be written: from the
+  // cache, from a build of it already under way, or built now
+  ByteBuffer get(MazeRequest request) {
+    String key = request.key();
+    ByteBuffer cached = this.cached(key);
+    if (cached != null) {
+      this.hits.incrementAndGet();
+      return cached;
+    }
+    CompletableFuture<ByteBuffer> mine = new CompletableFuture<ByteBuffer>();
+    CompletableFuture<ByteBuffer> building = this.pending.putIfAbsent(key, mine);
+    if (building != null) {
+      this.coalesced.incrementAndGet();
+      try {
+        return building.join().duplicate();
+      }
+      catch (CompletionException e) {
+        throw unchecked(e.getCause());
+      }
+    }
+    try {
+      // a build that finished between the two lookups has cached it
+      ByteBuffer encoded = this.cached(key);
+      if (encoded == null) {
+        this.misses.incrementAndGet();
+        encoded = request.encode();
+        this.store(key, encoded);
+      }
+      else {
+        this.hits.incrementAndGet();
+      }
+      mine.complete(encoded);
+      return encoded.duplicate();
+    }
+    catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    }
+    catch (Error e) {
+      // the requests waiting on this build fail with it rather than hang
+      mine.completeExceptionally(e);
+      throw unchecked(e);
+    }
+    finally {
+      this.pending.remove(key, mine);
+    }
+  }
+
+  // the reason a build failed as an unchecked exception to answer with:
+  // itself if it is one, or else, as for running out of memory on a big
+  // maze, wrapped in one
+  static RuntimeException unchecked(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    return new IllegalStateException("Could not build the maze: " + cause, cause);
+  }
+
+  // a duplicate of the cached answer for the key, marking it most recently
+  // used, or null
+  ByteBuffer cached(String key) {
+    synchronized (this.cache) {
+      ByteBuffer encoded = this.cache.get(key);
+      if (encoded == null) {
+        return null;
+      }
+      return encoded.duplicate();
+    }
+  }
+
+  // caches the answer for the key, forgetting the least recently used ones
+  // until they all fit; answers bigger than the whole cache are not kept
+  void store(String key, ByteBuffer encoded) {
+    if (encoded.capacity() > this.capacity) {
+      return;
+    }
+    synchronized (this.cache) {
+      ByteBuffer old = this.cache.put(key, encoded);
+      if (old != null) {
+        this.cachedBytes -= old.capacity();
+      }
+      this.cachedBytes += encoded.capacity();
+      Iterator<Map.Entry<String, ByteBuffer>> eldest = this.cache.entrySet().iterator();
+      while (this.cachedBytes > this.capacity) {
+        this.cachedBytes -= eldest.next().getValue().capacity();
+        eldest.remove();
+      }
+    }
+  }
+
+  // stops accepting connections and hangs up on the ones open
+  public void close() throws IOException {
+    if (this.server != null) {
+      this.server.close();
+    }
+    this.connections.shutdownNow();
+  }
+
+  // sends one request line down the channel and returns the answer's body,
+  // little-endian, for clients of the service
+  static ByteBuffer fetch(ByteChannel channel, String request) throws IOException {
+    ByteBuffer out = ByteBuffer.wrap((request + "\n").getBytes(StandardCharsets.US_ASCII));
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    StringBuilder header = new StringBuilder();
+    ByteBuffer one = ByteBuffer.allocate(1);
+    while (true) {
+      one.clear();
+      if (channel.read(one) < 0) {
+        throw new IOException("Service hung up");
+      }
+      char c = (char) one.get(0);
+      if (c == '\n') {
+        break;
+      }
+      header.append(c);
+    }
+    if (header.toString().startsWith("ERR ")) {
+      throw new IllegalArgumentException(header.substring(4));
+    }
+    ByteBuffer body = ByteBuffer.allocate(Integer.parseInt(header.substring(3)));
+    while (body.hasRemaining()) {
+      if (channel.read(body) < 0) {
+        throw new IOException("Service hung up");
+      }
+    }
+    body.flip();
+    return body.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // serves mazes until killed
+  public static void main(String[] args) throws IOException, InterruptedException {
+    SocketAddress address = loopback(7341);
+    long capacity = 256L << 20;
+    long maxCells = 1L << 24;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (args[i].equals("--port")) {
+        address = loopback(Integer.parseInt(args[i + 1]));
+      }
+      else if (args[i].equals("--unix")) {
+        Files.deleteIfExists(Paths.get(args[i + 1]));
+        address = UnixDomainSocketAddress.of(args[i + 1]);
+      }
+      else if (args[i].equals("--cache")) {
+        capacity = Long.parseLong(args[i + 1]);
+      }
+      else if (args[i].equals("--max-cells")) {
+        maxCells = Long.parseLong(args[i + 1]);
+      }
+      else {
+        System.err.println("usage: java MazeService [--port P | --unix PATH]"
+            + " [--cache BYTES] [--max-cells N]");
+        System.exit(2);
+        return;
+      }
+    }
+    MazeService service = new MazeService(capacity, maxCells);
+    System.err.println("serving mazes on " + service.listen(address));
+    Thread.currentThread().join();
+  }
+
+}
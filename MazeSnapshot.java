@@ -0,0 +1,80 @@
+// represents a copy of a MazeGrid taken at one moment that never changes
+// afterwards, so any number of solvers on any threads may read it while the
+// game goes on with the original. Beside its walls it keeps the open sides
+// of every cell as four bits, east, south, west and north, so listing the
+// neighbours of a cell reads one byte rather than up to four wall words.
+// Every way of knocking down or putting up walls throws instead.
+class MazeSnapshot extends MazeGrid {
+  static final int OPEN_EAST = 1;
+  static final int OPEN_SOUTH = 2;
+  static final int OPEN_WEST = 4;
+  static final int OPEN_NORTH = 8;
+
+  byte[] open;
+
+  MazeSnapshot(MazeGrid grid) {
+    super(grid.width, grid.height, false);
+    this.walls = new long[words(grid.width, grid.height)];
+    for (int i = 0; i < this.walls.length; i++) {
+      this.walls[i] = grid.word(i);
+    }
+    this.open = new byte[grid.cells()];
+    for (int cell = 0; cell < this.cells(); cell++) {
+      int col = this.col(cell);
+      if (col < this.width - 1 && !this.hasWall(2 * cell + EAST)) {
+        this.open[cell] |= OPEN_EAST;
+        this.open[cell + 1] |= OPEN_WEST;
+      }
+      if (cell + this.width < this.cells() && !this.hasWall(2 * cell + SOUTH)) {
+        this.open[cell] |= OPEN_SOUTH;
+        this.open[cell + this.width] |= OPEN_NORTH;
+      }
+    }
+  }
+
+  // writes the cells reachable in one step from the given cell into out,
+  // in east, south, west, north order, and returns how many there are
+  int neighbours(int cell, int[] out) {
+    int sides = this.open[cell];
+    int count = 0;
+    if ((sides & OPEN_EAST) != 0) {
+      out[count++] = cell + 1;
+    }
+    if ((sides & OPEN_SOUTH) != 0) {
+      out[count++] = cell + this.width;
+    }
+    if ((sides & OPEN_WEST) != 0) {
+      out[count++] = cell - 1;
+    }
+    if ((sides & OPEN_NORTH) != 0) {
+      out[count++] = cell - this.width;
+    }
+    return count;
+  }
+
+  // the number of cells reachable in one step from the given cell
+  int degree(int cell) {
+    return Integer.bitCount(this.open[cell]);
+  }
+
+  // snapshots never change
+  void closeAll() {
+    throw new IllegalStateException("Snapshots cannot change");
+  }
+
+  // snapshots never change
+  void openEdge(int edge) {
+    throw new IllegalStateException("Snapshots cannot change");
+  }
+
+  // snapshots never change
+  void closeEdge(int edge) {
+    throw new IllegalStateException("Snapshots cannot change");
+  }
+
+  // snapshots never change
+  public void row(int y, long[] walls, boolean last) {
+    throw new IllegalStateException("Snapshots cannot change");
+  }
+
+}
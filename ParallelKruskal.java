@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// generates a maze with Kruskal's algorithm by splitting the grid into
+// tiles and running it on every tile at once in a ForkJoinPool. Every edge
+// of the grid has one weight, hashed from the maze seed and the edge, so
+// a tile can weigh its own edges without asking anyone. An edge a tile
+// leaves out closes a cycle of lighter edges inside the tile, so it would
+// be left out of the whole maze too; what is left is the edges each tile
+// kept and the edges along the tile borders, which one last Kruskal pass
+// over the whole grid visits in weight order, merged from the sorted lists
+// of the tiles. The maze is therefore exactly the one Kruskal's algorithm
+// carves by those weights on its own: border openings are as likely as any
+// other, and the maze only depends on the seed, never on the tile size or
+// how many threads build it.
+class ParallelKruskal {
+  int tileWidth;
+  int tileHeight;
+  ForkJoinPool pool;
+
+  ParallelKruskal(int tileWidth, int tileHeight, ForkJoinPool pool) {
+    if (tileWidth < 1 || tileHeight < 1) {
+      throw new IllegalArgumentException("Tiles have to be at least 1 by 1");
+    }
+    this.tileWidth = tileWidth;
+    this.tileHeight = tileHeight;
+    this.pool = pool;
+  }
+
+  // generator with 256 by 256 tiles on the common pool
+  ParallelKruskal() {
+    this(256, 256, ForkJoinPool.commonPool());
+  }
+
+  // generates a new maze of the given size
+  MazeGrid generate(int width, int height, long seed) {
+    MazeGrid grid = new MazeGrid(width, height);
+    this.generate(grid, seed);
+    return grid;
+  }
+
+  // carves a maze into the given grid, which must have every wall up
+  void generate(MazeGrid grid, long seed) {
+    int tilesX = (grid.width + this.tileWidth - 1) / this.tileWidth;
+    int tilesY = (grid.height + this.tileHeight - 1) / this.tileHeight;
+    long[][] kept = new long[tilesX * tilesY + 1][];
+
+    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+    for (int t = 0; t < tilesX * tilesY; t++) {
+      int tile = t;
+      int col0 = (t % tilesX) * this.tileWidth;
+      int row0 = (t / tilesX) * this.tileHeight;
+      int w = Math.min(this.tileWidth, grid.width - col0);
+      int h = Math.min(this.tileHeight, grid.height - row0);
+      tasks.add(this.pool.submit(() -> {
+        kept[tile] = carveTile(grid, col0, row0, w, h, seed);
+      }));
+    }
+    kept[kept.length - 1] = this.borders(grid, tilesX, tilesY, seed);
+    join(tasks);
+
+    DisjointSet sets = new DisjointSet(grid.cells());
+    for (long key : this.mergeAll(kept)) {
+      int edge = (int) key;
+      if (sets.union(grid.edgeFrom(edge), grid.edgeTo(edge))) {
+        grid.openEdge(edge);
+        if (sets.sets == 1) {
+          return;
+        }
+      }
+    }
+  }
+
+  // the key Kruskal's algorithm sorts the given edge by: its weight, from
+  // 0 to 2^31 - 1, hashed from the seed and the edge with the SplitMix64
+  // finalizer, in the high half, and the edge itself, which breaks ties,
+  // in the low half
+  static long key(long seed, int edge) {
+    long mixed = seed + 0x9E3779B97F4A7C15L * (edge + 1L);
+    mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+    mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+    return ((mixed ^ (mixed >>> 31)) >>> 33) << 32 | edge;
+  }
+
+  // runs Kruskal's algorithm on the tile of the grid with the given top
+  // left cell and size, by the weights of its edges, and returns the keys
+  // of the edges it kept, lightest first; the grid is only read
+  static long[] carveTile(MazeGrid grid, int col0, int row0, int width, int height,
+      long seed) {
+    long[] keys = new long[(width - 1) * height + width * (height - 1)];
+    int count = 0;
+    for (int row = row0; row < row0 + height; row++) {
+      for (int col = col0; col < col0 + width; col++) {
+        int cell = grid.index(col, row);
+        if (col < col0 + width - 1) {
+          keys[count++] = key(seed, 2 * cell + MazeGrid.EAST);
+        }
+        if (row < row0 + height - 1) {
+          keys[count++] = key(seed, 2 * cell + MazeGrid.SOUTH);
+        }
+      }
+    }
+    sortByWeight(keys);
+    DisjointSet sets = new DisjointSet(width * height);
+    long[] kept = new long[width * height - 1];
+    int k = 0;
+    for (int i = 0; i < keys.length && k < kept.length; i++) {
+      int edge = (int) keys[i];
+      int from = grid.edgeFrom(edge);
+      int to = grid.edgeTo(edge);
+      if (sets.union((grid.row(from) - row0) * width + grid.col(from) - col0,
+          (grid.row(to) - row0) * width + grid.col(to) - col0)) {
+        kept[k++] = keys[i];
+      }
+    }
+    return kept;
+  }
+
+  // sorts keys listed in the order of their edges by weight, in three
+  // stable passes of 11 bits each, so that keys of equal weight stay in
+  // the order of their edges and the keys end up in order
+  static void sortByWeight(long[] keys) {
+    long[] from = keys;
+    long[] to = new long[keys.length];
+    int[] starts = new int[1 << 11];
+    for (int shift = 32; shift < 65; shift += 11) {
+      Arrays.fill(starts, 0);
+      for (long key : from) {
+        starts[(int) (key >>> shift) & 2047]++;
+      }
+      int sum = 0;
+      for (int i = 0; i < starts.length; i++) {
+        int count = starts[i];
+        starts[i] = sum;
+        sum += count;
+      }
+      for (long key : from) {
+        to[starts[(int) (key >>> shift) & 2047]++] = key;
+      }
+      long[] swap = from;
+      from = to;
+      to = swap;
+    }
+    // three passes leave the sorted keys in the spare array
+    System.arraycopy(from, 0, keys, 0, keys.length);
+  }
+
+  // the keys of the edges between tiles, lightest first
+  long[] borders(MazeGrid grid, int tilesX, int tilesY, long seed) {
+    long[] keys = new long[grid.height * (tilesX - 1) + (tilesY - 1) * grid.width];
+    int count = 0;
+    for (int row = 0; row < grid.height; row++) {
+      for (int col = this.tileWidth - 1; col < grid.width - 1; col += this.tileWidth) {
+        keys[count++] = key(seed, 2 * grid.index(col, row) + MazeGrid.EAST);
+      }
+    }
+    for (int row = this.tileHeight - 1; row < grid.height - 1; row += this.tileHeight) {
+      for (int col = 0; col < grid.width; col++) {
+        keys[count++] = key(seed, 2 * grid.index(col, row) + MazeGrid.SOUTH);
+      }
+    }
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  // merges the sorted lists into one, in rounds that merge them in pairs,
+  // the pairs of a round at once on the pool
+  long[] mergeAll(long[][] lists) {
+    while (lists.length > 1) {
+      long[][] merged = new long[(lists.length + 1) / 2][];
+      long[][] round = lists;
+      ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+      for (int i = 0; i + 1 < round.length; i += 2) {
+        int pair = i;
+        tasks.add(this.pool.submit(() -> {
+          merged[pair / 2] = merge(round[pair], round[pair + 1]);
+        }));
+      }
+      if (round.length % 2 == 1) {
+        merged[merged.length - 1] = round[round.length - 1];
+      }
+      join(tasks);
+      lists = merged;
+    }
+    return lists[0];
+  }
+
+  // the two sorted lists merged into one sorted list
+  static long[] merge(long[] a, long[] b) {
+    long[] out = new long[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] <= b[j]) {
+        out[k++] = a[i++];
+      }
+      else {
+        out[k++] = b[j++];
+      }
+    }
+    System.arraycopy(a, i, out, k, a.length - i);
+    System.arraycopy(b, j, out, k + a.length - i, b.length - j);
+    return out;
+  }
+
+  // waits for every task
+  static void join(ArrayList<ForkJoinTask<?>> tasks) {
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// answers batches of (start, goal) path queries against the TreeIndex of a
+// finished maze, spread across a ForkJoinPool. Queries only read the index,
+// so batches can run at the same time as each other and as the game; the
+// answers go into buffers the caller supplies.
+class PathQueries {
+  // batches are split until each task answers at most this many queries
+  static final int GRAIN = 4096;
+
+  TreeIndex index;
+  ForkJoinPool pool;
+
+  PathQueries(TreeIndex index, ForkJoinPool pool) {
+    this.index = index;
+    this.pool = pool;
+  }
+
+  // writes the number of cells on the path between starts[i] and goals[i]
+  // into lengths[i] for every query
+  void lengths(int[] starts, int[] goals, int[] lengths) {
+    this.check(starts, goals, lengths.length);
+    this.pool.invoke(new QueryTask(this.index, starts, goals, lengths, null, null,
+        0, starts.length));
+  }
+
+  // writes the path between starts[i] and goals[i] into buffer, from
+  // offsets[i] up to offsets[i + 1], where offsets come from lengths
+  void paths(int[] starts, int[] goals, int[] offsets, int[] buffer) {
+    this.check(starts, goals, offsets.length - 1);
+    if (buffer.length < offsets[starts.length]) {
+      throw new IllegalArgumentException("Buffer is too small for the paths");
+    }
+    this.pool.invoke(new QueryTask(this.index, starts, goals, null, offsets, buffer,
+        0, starts.length));
+  }
+
+  // the offsets at which paths of the given lengths start in one buffer,
+  // with the total length at the end
+  static int[] offsets(int[] lengths) {
+    int[] offsets = new int[lengths.length + 1];
+    for (int i = 0; i < lengths.length; i++) {
+      long next = (long) offsets[i] + lengths[i];
+      if (next > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Paths do not fit in one buffer");
+      }
+      offsets[i + 1] = (int) next;
+    }
+    return offsets;
+  }
+
+  // checks that a batch has as many goals and answers as starts
+  void check(int[] starts, int[] goals, int answers) {
+    if (starts.length != goals.length || starts.length != answers) {
+      throw new IllegalArgumentException("Every query needs a start, a goal and an answer");
+    }
+  }
+
+}
+
+// answers the queries from .. to - 1 of a batch, splitting in half while
+// there are more than PathQueries.GRAIN of them
+class QueryTask extends RecursiveAction {
+  // tasks are Serializable as every ForkJoinTask is, though never serialized
+  static final long serialVersionUID = 1L;
+
+  TreeIndex index;
+  int[] starts;
+  int[] goals;
+  int[] lengths;
+  int[] offsets;
+  int[] buffer;
+  int from;
+  int to;
+
+  QueryTask(TreeIndex index, int[] starts, int[] goals, int[] lengths, int[] offsets,
+      int[] buffer, int from, int to) {
+    this.index = index;
+    this.starts = starts;
+    this.goals = goals;
+    this.lengths = lengths;
+    this.offsets = offsets;
+    this.buffer = buffer;
+    this.from = from;
+    this.to = to;
+  }
+
+  // answers this part of the batch
+  protected void compute() {
+    if (this.to - this.from > PathQueries.GRAIN) {
+      int mid = (this.from + this.to) >>> 1;
+      invokeAll(new QueryTask(this.index, this.starts, this.goals, this.lengths, this.offsets,
+          this.buffer, this.from, mid),
+          new QueryTask(this.index, this.starts, this.goals, this.lengths, this.offsets,
+              this.buffer, mid, this.to));
+    }
+    else if (this.lengths != null) {
+      for (int i = this.from; i < this.to; i++) {
+        this.lengths[i] = this.index.distance(this.starts[i], this.goals[i]) + 1;
+      }
+    }
+    else {
+      for (int i = this.from; i < this.to; i++) {
+        this.index.path(this.starts[i], this.goals[i], this.buffer, this.offsets[i]);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// carves a maze with Prim's algorithm over random edge weights: the tree
+// grows from the first cell by always taking the lightest edge out of it.
+// The frontier is an IntHeap of edge ids keyed by weights drawn as the
+// edges are reached, so no weight is stored for edges never seen. Its
+// mazes have many short branches around the start.
+class PrimGenerator implements MazeGenerator {
+  IntHeap frontier;
+  long[] inTree;
+  int[] out;
+
+  PrimGenerator() {
+    this.frontier = new IntHeap(64);
+    this.out = new int[4];
+  }
+
+  // carves a maze by growing a tree from the first cell
+  public void generate(MazeGrid grid, RandomGenerator rand) {
+    int words = (grid.cells() + 63) >>> 6;
+    if (this.inTree == null || this.inTree.length != words) {
+      this.inTree = new long[words];
+    }
+    else {
+      Arrays.fill(this.inTree, 0L);
+    }
+    this.frontier.clear();
+    this.add(grid, 0, rand);
+
+    while (!this.frontier.isEmpty()) {
+      int edge = this.frontier.pop();
+      int from = grid.edgeFrom(edge);
+      int to = grid.edgeTo(edge);
+      boolean fromIn = this.isInTree(from);
+      boolean toIn = this.isInTree(to);
+      if (fromIn && toIn) {
+        continue;
+      }
+      grid.openEdge(edge);
+      if (fromIn) {
+        this.add(grid, to, rand);
+      }
+      else {
+        this.add(grid, from, rand);
+      }
+    }
+  }
+
+  // puts the cell in the tree and the edges to its neighbours outside it
+  // on the frontier
+  void add(MazeGrid grid, int cell, RandomGenerator rand) {
+    this.inTree[cell >>> 6] |= 1L << cell;
+    int count = grid.adjacent(cell, this.out);
+    for (int i = 0; i < count; i++) {
+      if (!this.isInTree(this.out[i])) {
+        this.frontier.push(rand.nextInt(Integer.MAX_VALUE),
+            grid.edgeBetween(cell, this.out[i]));
+      }
+    }
+  }
+
+  // determines if the cell is already in the tree
+  boolean isInTree(int cell) {
+    return (this.inTree[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "prim";
+  }
+
+  // the MazeFile code of this strategy
+  public int fileCode() {
+    return MazeFile.GENERATOR_PRIM;
+  }
+
+}
@@ -0,0 +1,124 @@
+import java.awt.Color;
+import javalib.impworld.WorldScene;
+import javalib.worldimages.ComputedPixelImage;
+import javalib.worldimages.FontStyle;
+import javalib.worldimages.TextImage;
+
+// shows a SolverRace as one panel per solver, side by side, two rows of
+// them in the space of the board. Once a solver has finished, its panel
+// replays the cells it expanded, the same number for every panel each
+// tick, so a strategy that had to expand fewer cells finds the goal first;
+// then its path is drawn. Beneath each panel are its name, the cells
+// expanded so far and how long the solve itself took on its thread.
+// Mazes bigger than a panel are shrunk, several cells to a pixel.
+class RaceView {
+  static final int PANEL_WIDTH = 500;
+  static final int PANEL_HEIGHT = 400;
+  // the room under each image for its text
+  static final int LABEL = 50;
+
+  SolverRace race;
+  ComputedPixelImage[] images;
+  int imageWidth;
+  int imageHeight;
+  // pixels per cell, or 0 when the maze is shrunk
+  int scale;
+  // how many of its expanded cells each panel shows so far
+  int[] shown;
+  boolean[] finished;
+  int[] path;
+
+  RaceView(SolverRace race) {
+    this.race = race;
+    MazeGrid grid = race.snapshot;
+    this.scale = Math.min(PANEL_WIDTH / grid.width, (PANEL_HEIGHT - LABEL) / grid.height);
+    this.imageWidth = Math.min(PANEL_WIDTH, grid.width * Math.max(1, this.scale));
+    this.imageHeight = Math.min(PANEL_HEIGHT - LABEL, grid.height * Math.max(1, this.scale));
+    int racers = race.solvers.length;
+    this.images = new ComputedPixelImage[racers];
+    this.shown = new int[racers];
+    this.finished = new boolean[racers];
+    this.path = new int[grid.cells()];
+    for (int i = 0; i < racers; i++) {
+      this.images[i] = new ComputedPixelImage(this.imageWidth, this.imageHeight);
+      this.images[i].setPixels(0, 0, this.imageWidth, this.imageHeight, Color.GRAY);
+      if (this.scale >= 3) {
+        for (int cell = 0; cell < grid.cells(); cell++) {
+          this.paintCell(i, cell, Color.GRAY);
+        }
+      }
+      this.paintCell(i, race.goal, Color.PINK);
+      this.paintCell(i, race.start, Color.GREEN);
+    }
+  }
+
+  // draws the given cell of the given panel in the colour, with its walls
+  // when cells are big enough to show them
+  void paintCell(int racer, int cell, Color color) {
+    MazeGrid grid = this.race.snapshot;
+    int col = grid.col(cell);
+    int row = grid.row(cell);
+    int x = (int) ((long) col * this.imageWidth / grid.width);
+    int y = (int) ((long) row * this.imageHeight / grid.height);
+    int w = Math.max(1, (int) ((long) (col + 1) * this.imageWidth / grid.width) - x);
+    int h = Math.max(1, (int) ((long) (row + 1) * this.imageHeight / grid.height) - y);
+    ComputedPixelImage image = this.images[racer];
+    image.setPixels(x, y, w, h, color);
+    if (this.scale >= 3) {
+      if (col < grid.width - 1 && grid.hasEastWall(cell)) {
+        image.setPixels(x + w - 1, y, 1, h, Color.BLACK);
+      }
+      if (row < grid.height - 1 && grid.hasSouthWall(cell)) {
+        image.setPixels(x, y + h - 1, w, 1, Color.BLACK);
+      }
+    }
+  }
+
+  // shows up to the given number of further expanded cells on every panel
+  // whose solver is done, and the path of any that has shown them all
+  void advance(int cells) {
+    for (int i = 0; i < this.images.length; i++) {
+      if (this.finished[i] || !this.race.isDone(i)) {
+        continue;
+      }
+      Solver solver = this.race.solvers[i];
+      int[] order = solver.order();
+      int until = (int) Math.min(solver.expanded(), (long) this.shown[i] + cells);
+      while (this.shown[i] < until) {
+        this.paintCell(i, order[this.shown[i]++], Color.BLUE);
+      }
+      if (this.shown[i] == solver.expanded()) {
+        this.finished[i] = true;
+        if (this.race.solved[i]) {
+          int length = solver.path(this.race.goal, this.path);
+          for (int k = 0; k < length; k++) {
+            this.paintCell(i, this.path[k], Color.PINK);
+          }
+        }
+      }
+    }
+  }
+
+  // the text under the given panel
+  String label(int racer) {
+    Solver solver = this.race.solvers[racer];
+    if (!this.race.isDone(racer)) {
+      return solver.name() + ": searching";
+    }
+    return String.format("%s: expanded %d of %d cells in %.2f ms", solver.name(),
+        this.shown[racer], solver.expanded(), this.race.nanos[racer] / 1e6);
+  }
+
+  // draws every panel and its text onto the scene
+  void draw(WorldScene scene) {
+    for (int i = 0; i < this.images.length; i++) {
+      int left = (i / 2) * PANEL_WIDTH;
+      int top = (i % 2) * PANEL_HEIGHT;
+      scene.placeImageXY(this.images[i], left + PANEL_WIDTH / 2,
+          top + this.imageHeight / 2);
+      scene.placeImageXY(new TextImage(this.label(i), 12, FontStyle.REGULAR, Color.BLACK),
+          left + PANEL_WIDTH / 2, top + this.imageHeight + LABEL / 2);
+    }
+  }
+
+}
@@ -0,0 +1,8 @@
+// represents something that takes the rows of a maze one at a time, as a
+// streaming generator produces them
+interface RowSink {
+  // takes row y of the maze, where bit 2x of walls is the wall east of
+  // column x and bit 2x + 1 the wall south of it, as in MazeGrid; last is
+  // true for the bottom row. The generator reuses walls for the next row.
+  void row(int y, long[] walls, boolean last);
+}
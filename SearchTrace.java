@@ -0,0 +1,72 @@
+import java.util.Arrays;
+
+// records what a solve shows, in order, as one int an event: the cell
+// shifted left one bit, with the low bit SEARCHED for a cell the search
+// expanded or PATH for a cell on the path it found. Beside every event is
+// the PALETTE index of the colour it painted over the first time it was
+// played, so that playing it backwards puts that colour back.
+class SearchTrace {
+  static final int SEARCHED = 0;
+  static final int PATH = 1;
+
+  int[] events;
+  byte[] covered;
+  int size;
+
+  SearchTrace() {
+    this.events = new int[16];
+    this.covered = new byte[16];
+  }
+
+  // makes room for at least the given number of events in all
+  void reserve(int capacity) {
+    if (capacity > this.events.length) {
+      int grown = (int) Math.min(Integer.MAX_VALUE - 8,
+          Math.max(capacity, 2L * this.events.length));
+      this.events = Arrays.copyOf(this.events, grown);
+      this.covered = Arrays.copyOf(this.covered, grown);
+    }
+  }
+
+  // records one event for the given cell
+  void add(int cell, int type) {
+    this.reserve(this.size + 1);
+    this.events[this.size++] = (cell << 1) | type;
+  }
+
+  // records the cells the solver expanded in its last solve, in order
+  void searched(Solver solver) {
+    int[] order = solver.order();
+    this.reserve(this.size + solver.expanded());
+    for (int i = 0; i < solver.expanded(); i++) {
+      this.events[this.size++] = (order[i] << 1) | SEARCHED;
+    }
+  }
+
+  // the cell of the given event
+  int cell(int i) {
+    return this.events[i] >>> 1;
+  }
+
+  // SEARCHED or PATH, the kind of the given event
+  int type(int i) {
+    return this.events[i] & 1;
+  }
+
+  // the number of events of the given kind
+  int count(int type) {
+    int count = 0;
+    for (int i = 0; i < this.size; i++) {
+      if (this.type(i) == type) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // forgets every event, keeping the room they took
+  void clear() {
+    this.size = 0;
+  }
+
+}
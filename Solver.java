@@ -0,0 +1,49 @@
+// represents a strategy for finding the path between two cells of a MazeGrid
+interface Solver {
+  // searches from start until it reaches goal, and returns whether it did
+  boolean solve(int start, int goal);
+
+  // the number of cells the last solve expanded
+  int expanded();
+
+  // the cells the last solve expanded, in order, in the first expanded() slots
+  int[] order();
+
+  // for every cell on the path the last solve found, the cell before it,
+  // so that following them from goal leads back to start
+  int[] parents();
+
+  // the most cells the last solve held waiting to be expanded at once
+  int highWater();
+
+  // writes the path from goal back to the start of the last solve into out
+  // and returns its length in cells
+  int path(int goal, int[] out);
+
+  // the name of this strategy
+  String name();
+
+  // the solver on the given grid for the key that picks it in the game:
+  // "b" breadth-first, "d" depth-first, "a" A*, "m" bidirectional or "w"
+  // Dijkstra over the grid's hills, with costs from 1 to Terrain.HILL_COST
+  static Solver forKey(String key, MazeGrid grid) {
+    if (key.equals("b")) {
+      return new GridSolver(grid, false);
+    }
+    else if (key.equals("d")) {
+      return new GridSolver(grid, true);
+    }
+    else if (key.equals("a")) {
+      return new AStarSolver(grid);
+    }
+    else if (key.equals("m")) {
+      return new BidirectionalSolver(grid);
+    }
+    else if (key.equals("w")) {
+      return new DijkstraSolver(grid, Terrain.hills(grid, Terrain.HILL_COST));
+    }
+    else {
+      throw new IllegalArgumentException("No solver for key " + key);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// races several solvers between the same two cells of one MazeSnapshot, all
+// at once, each on its own thread. Every solver keeps its own visited set,
+// parents and order, and the snapshot never changes, so the racers share
+// nothing they write. Each racer times its own solve; what it found can be
+// read once isDone says it has finished.
+class SolverRace {
+  // daemon threads shared by every race, so a race never keeps the program
+  // alive; they are made as racers need them and die when idle
+  static final ExecutorService RACERS = Executors.newCachedThreadPool(task -> {
+    Thread thread = new Thread(task, "maze-racer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  MazeSnapshot snapshot;
+  Solver[] solvers;
+  Future<?>[] runs;
+  // how long each solve took and whether it reached the goal, written by
+  // its racer before its run is done
+  long[] nanos;
+  boolean[] solved;
+  int start;
+  int goal;
+
+  // a race between the solvers for the given keys, as Solver.forKey has them
+  SolverRace(MazeSnapshot snapshot, String[] keys) {
+    if (keys.length == 0) {
+      throw new IllegalArgumentException("A race needs at least one solver");
+    }
+    this.snapshot = snapshot;
+    this.solvers = new Solver[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      this.solvers[i] = Solver.forKey(keys[i], snapshot);
+    }
+    this.runs = new Future<?>[keys.length];
+    this.nanos = new long[keys.length];
+    this.solved = new boolean[keys.length];
+  }
+
+  // starts every solver from start towards goal on the given threads
+  void start(int start, int goal, ExecutorService pool) {
+    this.start = start;
+    this.goal = goal;
+    for (int i = 0; i < this.solvers.length; i++) {
+      int racer = i;
+      this.runs[i] = pool.submit(() -> {
+        long started = System.nanoTime();
+        this.solved[racer] = this.solvers[racer].solve(start, goal);
+        this.nanos[racer] = System.nanoTime() - started;
+      });
+    }
+  }
+
+  // determines if the given solver has finished its solve
+  boolean isDone(int racer) {
+    return this.runs[racer] != null && this.runs[racer].isDone();
+  }
+
+  // waits for every solver to finish
+  void join() {
+    for (Future<?> run : this.runs) {
+      try {
+        run.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while racing the solvers", e);
+      }
+      catch (ExecutionException e) {
+        throw new IllegalStateException("A solver failed in the race", e.getCause());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// represents what it costs to step into each cell of a grid, from 1 up to
+// MAX_COST, one byte a cell. Leaving the start costs nothing; the cost of a
+// path is the sum of the costs of every other cell on it. Costs belong to
+// cells rather than to the walls between them, so a maze's terrain stays
+// the same whichever walls its generator knocked down.
+class Terrain {
+  static final int MAX_COST = 127;
+  // the cost of the tops of the hills the "w" solver crosses
+  static final int HILL_COST = 9;
+
+  byte[] costs;
+  // the largest cost of any cell
+  int maxCost;
+
+  Terrain(byte[] costs) {
+    this.costs = costs;
+    for (byte cost : costs) {
+      if (cost < 1) {
+        throw new IllegalArgumentException("Costs have to be from 1 to " + MAX_COST);
+      }
+      this.maxCost = Math.max(this.maxCost, cost);
+    }
+  }
+
+  // what it costs to step into the given cell
+  int cost(int cell) {
+    return this.costs[cell];
+  }
+
+  // the same cost for every one of the given number of cells
+  static Terrain uniform(int cells, int cost) {
+    checkMax(cost);
+    byte[] costs = new byte[cells];
+    Arrays.fill(costs, (byte) cost);
+    return new Terrain(costs);
+  }
+
+  // costs drawn independently and uniformly from 1 to maxCost
+  static Terrain random(int cells, RandomGenerator rand, int maxCost) {
+    checkMax(maxCost);
+    byte[] costs = new byte[cells];
+    for (int i = 0; i < cells; i++) {
+      costs[i] = (byte) (1 + rand.nextInt(maxCost));
+    }
+    return new Terrain(costs);
+  }
+
+  // rolling hills across the grid, from 1 in the valleys to maxCost on the
+  // tops, about sixteen cells from one top to the next; always the same
+  // for a grid of the same size
+  static Terrain hills(MazeGrid grid, int maxCost) {
+    checkMax(maxCost);
+    byte[] costs = new byte[grid.cells()];
+    for (int cell = 0; cell < costs.length; cell++) {
+      double height = Math.sin(grid.col(cell) * Math.PI / 8)
+          + Math.cos(grid.row(cell) * Math.PI / 8);
+      costs[cell] = (byte) (1 + Math.round((height + 2) / 4 * (maxCost - 1)));
+    }
+    return new Terrain(costs);
+  }
+
+  // checks the largest cost asked for
+  static void checkMax(int maxCost) {
+    if (maxCost < 1 || maxCost > MAX_COST) {
+      throw new IllegalArgumentException("Costs have to be from 1 to " + MAX_COST);
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// counts durations in buckets of powers of two nanoseconds: bucket b holds
+// those from 2^b up to 2^(b + 1), so percentiles are exact to a factor of 2
+class TimeHistogram {
+  static final int BUCKETS = 64;
+
+  AtomicLongArray buckets;
+  AtomicLong count;
+  AtomicLong total;
+
+  TimeHistogram() {
+    this.buckets = new AtomicLongArray(BUCKETS);
+    this.count = new AtomicLong();
+    this.total = new AtomicLong();
+  }
+
+  // records a duration
+  void add(long nanos) {
+    long clamped = Math.max(nanos, 1);
+    this.buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(clamped));
+    this.count.incrementAndGet();
+    this.total.addAndGet(clamped);
+  }
+
+  // the number of durations recorded
+  long count() {
+    return this.count.get();
+  }
+
+  // the mean duration in nanoseconds, or 0 if none were recorded
+  double mean() {
+    long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    return (double) this.total.get() / count;
+  }
+
+  // the upper end of the bucket within which the given fraction of the
+  // durations fall, in nanoseconds, or 0 if none were recorded
+  double percentile(double fraction) {
+    long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    long wanted = (long) Math.ceil(count * fraction);
+    long seen = 0;
+    for (int b = 0; b < BUCKETS - 1; b++) {
+      seen += this.buckets.get(b);
+      if (seen >= wanted) {
+        return Math.pow(2, b + 1);
+      }
+    }
+    return Math.pow(2, BUCKETS);
+  }
+
+  // forgets every duration
+  void reset() {
+    for (int b = 0; b < BUCKETS; b++) {
+      this.buckets.set(b, 0);
+    }
+    this.count.set(0);
+    this.total.set(0);
+  }
+
+}
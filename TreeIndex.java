@@ -0,0 +1,130 @@
+// represents a carved maze as a tree hanging from a root cell, with the
+// parent and depth of every cell and binary-lifting tables for finding the
+// lowest common ancestor of two cells. Built once, it answers the path
+// between any two cells in O(log n + path length) without searching.
+// It never changes after it is built, so any number of threads may query it.
+class TreeIndex {
+  MazeGrid grid;
+  int root;
+  int[] parent;
+  int[] depth;
+  // up[k][cell] is the ancestor 2^k steps above cell, or root past the top
+  int[][] up;
+
+  TreeIndex(MazeGrid grid, int root) {
+    this.grid = grid;
+    this.root = root;
+    this.parent = new int[grid.cells()];
+    this.depth = new int[grid.cells()];
+
+    // breadth-first from the root, using order as the queue
+    int[] order = new int[grid.cells()];
+    boolean[] seen = new boolean[grid.cells()];
+    int[] out = new int[4];
+    int head = 0;
+    int tail = 0;
+    order[tail++] = root;
+    seen[root] = true;
+    this.parent[root] = root;
+    int maxDepth = 0;
+    while (head < tail) {
+      int cell = order[head++];
+      int count = grid.neighbours(cell, out);
+      for (int i = 0; i < count; i++) {
+        int to = out[i];
+        if (!seen[to]) {
+          seen[to] = true;
+          this.parent[to] = cell;
+          this.depth[to] = this.depth[cell] + 1;
+          maxDepth = Math.max(maxDepth, this.depth[to]);
+          order[tail++] = to;
+        }
+      }
+    }
+    if (tail != grid.cells()) {
+      throw new IllegalArgumentException("Maze does not connect every cell");
+    }
+
+    int levels = 1;
+    while ((1 << levels) <= maxDepth) {
+      levels++;
+    }
+    this.up = new int[levels][];
+    this.up[0] = this.parent;
+    for (int k = 1; k < levels; k++) {
+      int[] half = this.up[k - 1];
+      int[] full = new int[grid.cells()];
+      for (int cell = 0; cell < full.length; cell++) {
+        full[cell] = half[half[cell]];
+      }
+      this.up[k] = full;
+    }
+  }
+
+  // index hanging from the first cell
+  TreeIndex(MazeGrid grid) {
+    this(grid, 0);
+  }
+
+  // the ancestor of the given cell the given number of steps above it
+  int ancestor(int cell, int steps) {
+    if (steps >= this.depth[cell]) {
+      return this.root;
+    }
+    for (int k = 0; steps > 0; k++, steps >>>= 1) {
+      if ((steps & 1) != 0) {
+        cell = this.up[k][cell];
+      }
+    }
+    return cell;
+  }
+
+  // the deepest cell that is an ancestor of both given cells
+  int lca(int a, int b) {
+    if (this.depth[a] < this.depth[b]) {
+      int temp = a;
+      a = b;
+      b = temp;
+    }
+    a = this.ancestor(a, this.depth[a] - this.depth[b]);
+    if (a == b) {
+      return a;
+    }
+    for (int k = this.up.length - 1; k >= 0; k--) {
+      if (this.up[k][a] != this.up[k][b]) {
+        a = this.up[k][a];
+        b = this.up[k][b];
+      }
+    }
+    return this.parent[a];
+  }
+
+  // the number of steps on the path between the two cells
+  int distance(int a, int b) {
+    return this.depth[a] + this.depth[b] - 2 * this.depth[this.lca(a, b)];
+  }
+
+  // writes the cells on the path from a to b into out, both ends included,
+  // and returns how many there are
+  int path(int a, int b, int[] out) {
+    return this.path(a, b, out, 0);
+  }
+
+  // writes the cells on the path from a to b into out from the given offset
+  // and returns how many there are
+  int path(int a, int b, int[] out, int offset) {
+    int meet = this.lca(a, b);
+    int at = offset;
+    for (int cell = a; cell != meet; cell = this.parent[cell]) {
+      out[at++] = cell;
+    }
+    out[at++] = meet;
+    int end = at + this.depth[b] - this.depth[meet];
+    at = end;
+    for (int cell = b; cell != meet; cell = this.parent[cell]) {
+      out[--at] = cell;
+    }
+    return end - offset;
+  }
+
+}
@@ -0,0 +1,62 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// carves a maze with Wilson's algorithm, which picks every spanning tree of
+// the grid with the same probability. From each cell outside the tree it
+// walks at random until it reaches the tree, remembering only the last
+// step taken out of every cell, which erases the loops of the walk; the
+// walk is then retraced from its start and added to the tree. Its mazes
+// are unbiased, at the price of long walks while the tree is still small.
+class WilsonGenerator implements MazeGenerator {
+  int[] next;
+  long[] inTree;
+  int[] out;
+
+  WilsonGenerator() {
+    this.out = new int[4];
+  }
+
+  // carves a maze by adding loop-erased random walks to the tree
+  public void generate(MazeGrid grid, RandomGenerator rand) {
+    if (this.next == null || this.next.length != grid.cells()) {
+      this.next = new int[grid.cells()];
+      this.inTree = new long[(grid.cells() + 63) >>> 6];
+    }
+    else {
+      Arrays.fill(this.inTree, 0L);
+    }
+    int root = rand.nextInt(grid.cells());
+    this.inTree[root >>> 6] |= 1L << root;
+
+    for (int start = 0; start < grid.cells(); start++) {
+      int cell = start;
+      while (!this.isInTree(cell)) {
+        int count = grid.adjacent(cell, this.out);
+        this.next[cell] = this.out[rand.nextInt(count)];
+        cell = this.next[cell];
+      }
+      cell = start;
+      while (!this.isInTree(cell)) {
+        this.inTree[cell >>> 6] |= 1L << cell;
+        grid.openEdge(grid.edgeBetween(cell, this.next[cell]));
+        cell = this.next[cell];
+      }
+    }
+  }
+
+  // determines if the cell is already in the tree
+  boolean isInTree(int cell) {
+    return (this.inTree[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  // the name of this strategy
+  public String name() {
+    return "wilson";
+  }
+
+  // the MazeFile code of this strategy
+  public int fileCode() {
+    return MazeFile.GENERATOR_WILSON;
+  }
+
+}